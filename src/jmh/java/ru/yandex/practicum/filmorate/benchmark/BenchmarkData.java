@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Детерминированное наполнение БД для бенчмарков: на size пользователей приходится size / 2 фильмов,
+ * по LIKES_PER_USER лайков (с перекосом в сторону популярных фильмов), FRIENDS_PER_USER друзей
+ * и EVENTS_PER_USER событий ленты.
+ */
+final class BenchmarkData {
+    static final int LIKES_PER_USER = 20;
+    static final int FRIENDS_PER_USER = 20;
+    static final int EVENTS_PER_USER = 10;
+    static final String[] WORDS = {"star", "dark", "night", "river", "storm", "garden", "winter", "city", "ghost", "road"};
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    BenchmarkData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    static int films(int size) {
+        return Math.max(1, size / 2);
+    }
+
+    void seed(int size) {
+        int films = films(size);
+        int directors = Math.max(1, films / 10);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= size; id++) {
+            rows.add(new Object[]{id, "user" + id + "@mail.ru", "user" + id, "User " + id,
+                    Date.valueOf(LocalDate.of(1970 + id % 40, 1 + id % 12, 1 + id % 28))});
+        }
+        insert("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", rows);
+
+        for (int id = 1; id <= directors; id++) {
+            rows.add(new Object[]{id, "Director " + word() + " " + id});
+        }
+        insert("INSERT INTO directors (id, name) VALUES (?, ?)", rows);
+
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> filmDirectors = new ArrayList<>();
+        for (int id = 1; id <= films; id++) {
+            rows.add(new Object[]{id, word() + " " + word() + " " + id, "Description " + id,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1)),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            int firstGenre = 1 + random.nextInt(6);
+            genres.add(new Object[]{id, firstGenre});
+            if (random.nextBoolean()) {
+                genres.add(new Object[]{id, 1 + firstGenre % 6});
+            }
+            filmDirectors.add(new Object[]{id, 1 + random.nextInt(directors)});
+        }
+        insert("""
+                INSERT INTO films (id, name, description, release_date, duration, mpa_rating_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, rows);
+        insert("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genres);
+        insert("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", filmDirectors);
+
+        List<Object[]> events = new ArrayList<>();
+        for (int userId = 1; userId <= size; userId++) {
+            Set<Integer> liked = new HashSet<>();
+            while (liked.size() < Math.min(LIKES_PER_USER, films)) {
+                // Квадрат равномерной величины смещает лайки к фильмам с малыми id — получаются «хиты»
+                double r = random.nextDouble();
+                liked.add(1 + (int) (films * r * r));
+            }
+            int eventsLeft = EVENTS_PER_USER;
+            for (int filmId : liked) {
+                rows.add(new Object[]{filmId, userId});
+                if (eventsLeft-- > 0) {
+                    events.add(new Object[]{System.currentTimeMillis(), userId, "LIKE", "ADD", filmId});
+                }
+            }
+        }
+        insert("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", rows);
+        insert("""
+                INSERT INTO events (timestamp, user_id, event_type, operation, entity_id)
+                VALUES (?, ?, ?, ?, ?)
+                """, events);
+
+        for (int userId = 1; userId <= size; userId++) {
+            Set<Integer> friends = new HashSet<>();
+            while (friends.size() < Math.min(FRIENDS_PER_USER, size - 1)) {
+                int friendId = 1 + random.nextInt(size);
+                if (friendId != userId) {
+                    friends.add(friendId);
+                }
+            }
+            for (int friendId : friends) {
+                rows.add(new Object[]{userId, friendId});
+            }
+        }
+        insert("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", rows);
+
+        // Идентификаторы заданы явно, поэтому счётчики identity сдвигаются за пределы данных
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (size + 1));
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH " + (films + 1));
+        jdbcTemplate.execute("ALTER TABLE directors ALTER COLUMN id RESTART WITH " + (directors + 1));
+    }
+
+    String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    // Вставляет накопленные строки пачками и очищает список для следующей таблицы
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+        rows.clear();
+    }
+}
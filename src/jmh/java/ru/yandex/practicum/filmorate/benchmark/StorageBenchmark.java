@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути хранилищ на встроенной H2, заполненной {@link BenchmarkData}, для нескольких размеров данных.
+ * Контекст приложения поднимается целиком (без веб-сервера), так что замеряются те же бины,
+ * что и в проде: прокси транзакций и метрик, индексы в памяти, обёртка пула соединений.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    private static final List<String> SEARCH_BY = List.of("title", "director");
+    private static final int SEARCH_COUNT = 20;
+
+    // Число пользователей; фильмов вдвое меньше
+    @Param({"1000", "10000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+    private EventStorage eventStorage;
+    private int films;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark-" + size + ";DB_CLOSE_DELAY=-1",
+                        "--filmorate.events.write-mode=SYNC",
+                        "--filmorate.likes-count.repair-cron=-",
+                        "--filmorate.timeline.trim-cron=-",
+                        "--filmorate.recommendations.refresh-delay=PT24H",
+                        "--logging.level.root=WARN");
+        new BenchmarkData(context.getBean(JdbcTemplate.class)).seed(size);
+        films = BenchmarkData.films(size);
+
+        filmStorage = context.getBean(FilmStorage.class);
+        userStorage = context.getBean(UserStorage.class);
+        eventStorage = context.getBean(EventStorage.class);
+        filmStorage.repairLikesCounts();
+        // Индексы могли загрузиться при старте по пустой БД — после наполнения они читаются заново
+        context.getBeansOfType(InMemoryIndex.class).values().forEach(InMemoryIndex::invalidate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom(7);
+
+        int user(StorageBenchmark benchmark) {
+            return 1 + random.nextInt(benchmark.size);
+        }
+
+        int film(StorageBenchmark benchmark) {
+            return 1 + random.nextInt(benchmark.films);
+        }
+
+        String word() {
+            return BenchmarkData.WORDS[random.nextInt(BenchmarkData.WORDS.length)];
+        }
+    }
+
+    @Benchmark
+    public List<Film> findMostPopularFilms() {
+        return filmStorage.findMostPopularFilms(10, null, null);
+    }
+
+    @Benchmark
+    public List<Film> findMostPopularFilmsByGenreAndYear(Ids ids) {
+        return filmStorage.findMostPopularFilms(10, 1 + ids.random.nextInt(6), 1950 + ids.random.nextInt(75));
+    }
+
+    @Benchmark
+    public List<Film> searchFilms(Ids ids) {
+        return filmStorage.searchFilms(ids.word().substring(0, 3), SEARCH_BY, SEARCH_COUNT);
+    }
+
+    @Benchmark
+    public List<Film> getRecommendations(Ids ids) {
+        return filmStorage.getRecommendations(ids.user(this));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(Ids ids) {
+        return userStorage.getCommonFriends(ids.user(this), ids.user(this));
+    }
+
+    @Benchmark
+    public List<Event> getFeed(Ids ids) {
+        return eventStorage.getFeed(ids.user(this), null, null, 100, true);
+    }
+
+    // Новый лайк тут же снимается, чтобы данные не дрейфовали между итерациями:
+    // в замер входят обе операции, сравнивать стоит между прогонами, а не с остальными методами
+    @Benchmark
+    public boolean addLike(Ids ids) {
+        int filmId = ids.film(this);
+        int userId = ids.user(this);
+        boolean added = filmStorage.addLike(filmId, userId);
+        if (added) {
+            filmStorage.removeLike(filmId, userId);
+        }
+        return added;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+
+@Configuration
+public class LogbookConfig {
+
+    // Logbook буферизует тела целиком, поэтому потоковые NDJSON-выгрузки, SSE и пакетную загрузку не логируем
+    @Bean
+    public Predicate<HttpRequest> requestCondition() {
+        return request -> {
+            if (request.getPath().endsWith("/feed/stream") || request.getPath().endsWith("/films/bulk")) {
+                return false;
+            }
+            String accept = request.getHeaders().getFirst("Accept");
+            return accept == null || !accept.contains("application/x-ndjson");
+        };
+    }
+}
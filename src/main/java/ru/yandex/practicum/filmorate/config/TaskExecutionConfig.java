@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class TaskExecutionConfig {
+
+    // Любой собственный Executor отключает автоконфигурацию applicationTaskExecutor, на котором MVC
+    // выполняет асинхронные ответы (NDJSON-выгрузки), поэтому он объявлен явно тем же билдером Boot
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public SimpleAsyncTaskExecutor applicationTaskExecutor(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Пул фонового пересчёта рекомендаций; останавливается вместе с контекстом
+    @Bean
+    public ThreadPoolTaskExecutor recommendationRefreshExecutor(
+            @Value("${filmorate.recommendations.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("recommendations-");
+        return executor;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@Component
+@RequiredArgsConstructor
+class BulkRequests {
+    private final ObjectMapper objectMapper;
+
+    // Читает тело запроса по одному элементу: и JSON-массив, и NDJSON (значения через перевод строки).
+    // Элемент, который не удалось разобрать, возвращается строкой с текстом ошибки. Ошибка привязки
+    // (синтаксически верный JSON не того типа) касается только своего элемента, а после синтаксической
+    // ошибки чтение прекращается, так как дальше границы элементов уже не определить.
+    // Тело, которое не начинается с JSON, отклоняется целиком
+    Iterator<Object> read(InputStream body, Class<?> type) throws IOException {
+        MappingIterator<?> values;
+        try {
+            values = objectMapper.readerFor(type).readValues(body);
+        } catch (StreamReadException e) {
+            throw new ValidationException("Некорректный JSON: " + firstLine(e));
+        }
+        return new Iterator<>() {
+            private String pendingError;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (pendingError != null) {
+                    return true;
+                }
+                if (finished) {
+                    return false;
+                }
+                try {
+                    return values.hasNextValue();
+                } catch (IOException | RuntimeException e) {
+                    finished = true;
+                    pendingError = firstLine(e);
+                    return true;
+                }
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (pendingError != null) {
+                    String error = pendingError;
+                    pendingError = null;
+                    return error;
+                }
+                try {
+                    return values.nextValue();
+                } catch (IOException | RuntimeException e) {
+                    finished = !(e instanceof DatabindException);
+                    return firstLine(e);
+                }
+            }
+        };
+    }
+
+    private static String firstLine(Exception e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return message.lines().findFirst().orElse(message);
+    }
+}
@@ -4,10 +4,18 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
@@ -16,10 +24,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final NdjsonResponses ndjsonResponses;
+    private final FilmImportService filmImportService;
+    private final BulkRequests bulkRequests;
 
+    // По умолчанию отдаётся страница, курсор следующей страницы — в заголовке X-Next-Cursor.
+    // Полный список без пагинации — только явно, через unpaged=true
     @GetMapping
-    public Collection<Film> getAllFilms() {
-        return filmService.getAllFilms();
+    public ResponseEntity<Collection<Film>> getAllFilms(
+            @RequestParam(defaultValue = "0") int afterId,
+            @RequestParam(defaultValue = PageResponses.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            return ResponseEntity.ok(filmService.getAllFilms());
+        }
+        Page<Film> page = filmService.getFilmsPage(afterId, limit);
+        return PageResponses.toResponse(page);
+    }
+
+    // Полная выгрузка каталога построчно (NDJSON) для ночных синхронизаций
+    @GetMapping(produces = NdjsonResponses.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllFilms() {
+        return ndjsonResponses.stream(filmService::streamAllFilms);
     }
 
     @GetMapping("/{id}")
@@ -33,6 +59,12 @@ public class FilmController {
         return filmService.createFilm(film);
     }
 
+    // Загрузка каталога партнёра: JSON-массив или NDJSON, результат — по каждому фильму и скорость записи
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonResponses.APPLICATION_NDJSON})
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        return filmImportService.importFilms(bulkRequests.read(body, Film.class));
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
@@ -78,8 +110,9 @@ public class FilmController {
     @GetMapping("/search")
     public List<Film> searchFilm(
             @RequestParam String query,
-            @RequestParam String by
+            @RequestParam String by,
+            @RequestParam(required = false) Integer count
     ) {
-        return filmService.searchFilms(query, by);
+        return filmService.searchFilms(query, by, count);
     }
 }
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+class NdjsonResponses {
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    // source получает потребителя и вызывает его для каждого элемента по мере чтения из БД,
+    // каждый элемент сразу сериализуется в ответ отдельной строкой
+    <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> source.accept(new Consumer<>() {
+            private int written;
+
+            @Override
+            public void accept(T item) {
+                try {
+                    write(out, item);
+                    if (++written % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
+    private void write(OutputStream out, Object item) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(item));
+        out.write('\n');
+    }
+}
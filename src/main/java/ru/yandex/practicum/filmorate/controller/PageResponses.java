@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.PageLimits;
+
+import java.util.Collection;
+
+/**
+ * Общий контракт списочных эндпоинтов (/films, /users, /users/{id}/feed): по умолчанию отдаётся страница
+ * размером limit (не больше PageLimits.MAX_PAGE_SIZE), курсор следующей страницы — в заголовке X-Next-Cursor,
+ * полный список — только явно, через unpaged=true.
+ */
+final class PageResponses {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Размер страницы по умолчанию — наибольший допустимый
+    static final String DEFAULT_LIMIT = "" + PageLimits.MAX_PAGE_SIZE;
+
+    private PageResponses() {
+    }
+
+    // Тело ответа остаётся массивом, как и у непостраничных эндпоинтов, курсор уходит в заголовок
+    static <T> ResponseEntity<Collection<T>> toResponse(Page<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+}
@@ -2,11 +2,12 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 
-import java.util.List;
+import java.util.Collection;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,11 +36,13 @@ public class ReviewController {
         return reviewService.findById(id);  // либо вернёт Review, либо выбросит NotFoundException
     }
 
+    // Следующая страница — cursor из заголовка X-Next-Cursor
     @GetMapping
-    public List<Review> getAllByFilmId(
+    public ResponseEntity<Collection<Review>> getAllByFilmId(
             @RequestParam(required = false) Integer filmId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int count) {
-        return reviewService.findByFilmId(filmId, count);
+        return PageResponses.toResponse(reviewService.findPage(filmId, cursor, count));
     }
 
     @PutMapping("/{id}/like/{userId}")
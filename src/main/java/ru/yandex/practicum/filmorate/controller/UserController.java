@@ -3,10 +3,17 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FeedStreamService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -18,10 +25,24 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final NdjsonResponses ndjsonResponses;
+    private final FeedStreamService feedStreamService;
 
     @GetMapping
-    public Collection<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<Collection<User>> getAllUsers(
+            @RequestParam(defaultValue = "0") int afterId,
+            @RequestParam(defaultValue = PageResponses.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        Page<User> page = userService.getUsersPage(afterId, limit);
+        return PageResponses.toResponse(page);
+    }
+
+    @GetMapping(produces = NdjsonResponses.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return ndjsonResponses.stream(userService::streamAllUsers);
     }
 
     @GetMapping({"/{id}"})
@@ -60,6 +81,17 @@ public class UserController {
         return userService.getCommonFriends(userId, otherId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<FriendSuggestion> getFriendSuggestions(@PathVariable int id,
+                                                       @RequestParam(defaultValue = "10") int count) {
+        return userService.getFriendSuggestions(id, count);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public List<User> getFriendshipPath(@PathVariable int id, @PathVariable int otherId) {
+        return userService.getFriendshipPath(id, otherId);
+    }
+
     @GetMapping("{id}/recommendations")
     public List<Film> getRecommendations(@PathVariable int id) {
         return userService.getRecommendations(id);
@@ -70,8 +102,39 @@ public class UserController {
         userService.removeUser(userId);
     }
 
+    /**
+     * Лента с курсором: по умолчанию от старых событий к новым, следующая страница — afterId
+     * из X-Next-Cursor. В режиме newestFirst лента идёт от новых к старым, курсор передаётся в beforeId.
+     * Параметры пагинации те же, что у /films и /users (см. PageResponses).
+     */
     @GetMapping("/{userId}/feed")
-    public List<Event> getFeed(@PathVariable int userId) {
-        return userService.getFeed(userId);
+    public ResponseEntity<Collection<Event>> getFeed(
+            @PathVariable int userId,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer beforeId,
+            @RequestParam(defaultValue = PageResponses.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean newestFirst,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            return ResponseEntity.ok(userService.getFeed(userId));
+        }
+        Page<Event> page = userService.getFeedPage(userId, afterId, beforeId, limit, newestFirst);
+        return PageResponses.toResponse(page);
+    }
+
+    // Новые события ленты по мере записи; после переподключения досылаются события после Last-Event-ID
+    @GetMapping(value = "/{userId}/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@PathVariable int userId,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) Integer lastEventId) {
+        return feedStreamService.subscribe(userId, lastEventId);
+    }
+
+    // События друзей от новых к старым; следующая страница — beforeId из X-Next-Cursor
+    @GetMapping("/{userId}/timeline")
+    public ResponseEntity<Collection<Event>> getTimeline(
+            @PathVariable int userId,
+            @RequestParam(required = false) Integer beforeId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PageResponses.toResponse(userService.getTimelinePage(userId, beforeId, limit));
     }
 }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог пакетной загрузки: счётчики, скорость записи в строках в секунду и результаты по каждому элементу.
+ */
+@Data
+public class BulkImportResult {
+    private int total;
+    private int imported;
+    private int failed;
+    private long rowsWritten;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<BulkItemResult> items = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат для одного элемента пакетной загрузки: id созданной записи либо текст ошибки.
+ */
+@Data
+@AllArgsConstructor
+public class BulkItemResult {
+    private int index;
+    private Integer id;
+    private String error;
+
+    public static BulkItemResult created(int index, int id) {
+        return new BulkItemResult(index, id, null);
+    }
+
+    public static BulkItemResult failed(int index, String error) {
+        return new BulkItemResult(index, null, error);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -17,6 +19,9 @@ import java.util.Set;
  */
 @Data
 public class Film {
+    // День первого публичного киносеанса братьев Люмьер
+    public static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+
     private Integer id;
     private Set<Integer> likes = new HashSet<>();
 
@@ -38,6 +43,13 @@ public class Film {
 
     private List<Director> directors;
 
+    // Единая проверка даты релиза для POST/PUT /films (@Valid) и пакетной загрузки (Validator)
+    @JsonIgnore
+    @AssertTrue(message = "дата релиза — не раньше 28 декабря 1895 года")
+    public boolean isReleaseDateAllowed() {
+        return releaseDate == null || !releaseDate.isBefore(MIN_RELEASE_DATE);
+    }
+
     public void addLike(Integer userId) {
         likes.add(userId);
     }
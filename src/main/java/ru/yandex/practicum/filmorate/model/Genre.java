@@ -1,16 +1,17 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.*;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
 
 import java.util.Objects;
 
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
+// Неизменяемый: экземпляры из справочника GenreDao общие для всех фильмов
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Genre {
-    private Integer id;
-    private String name;
+    Integer id;
+    String name;
 
     @Override
     public boolean equals(Object o) {
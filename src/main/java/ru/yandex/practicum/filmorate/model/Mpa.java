@@ -1,16 +1,16 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+// Неизменяемый: экземпляры из справочника MpaDao общие для всех фильмов
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Mpa {
     @NotNull
-    private Integer id;
+    Integer id;
     @NotNull
-    private String name;
+    String name;
 }
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации: элементы в порядке ключа и курсор для следующего запроса —
+ * ключ последнего элемента. nextCursor равен null, если страница последняя.
+ */
+@Data
+@AllArgsConstructor
+public class Page<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public static <T> Page<T> of(List<T> items, int limit, Function<T, ?> cursorExtractor) {
+        String nextCursor = items.isEmpty() || items.size() < limit
+                ? null
+                : String.valueOf(cursorExtractor.apply(items.getLast()));
+        return new Page<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Исключает метод интерфейса хранилища из таймера filmorate.storage. Нужен для методов,
+ * которые отвечают из памяти и вызываются на каждую строку: замер стоил бы больше самого вызова.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NotTimed {
+}
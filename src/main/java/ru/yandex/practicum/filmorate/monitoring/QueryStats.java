@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Счётчик SQL-запросов текущего HTTP-запроса: число выполненных statement-ов, суммарное время в БД
+ * и сколько раз выполнялся каждый текст запроса.
+ * Привязан к потоку запроса; асинхронные части (потоковые ответы, фоновые задачи) не учитываются.
+ */
+public final class QueryStats {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int count;
+    private long nanos;
+
+    private QueryStats() {
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void record(String sql, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+        if (sql != null) {
+            executionsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getMillis() {
+        return nanos / 1_000_000.0;
+    }
+
+    // Запрос, выполненный больше всего раз, — главный кандидат на N+1
+    public Map.Entry<String, Integer> mostRepeated() {
+        return executionsBySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Считает SQL-запросы каждого HTTP-запроса: отдаёт их в заголовках X-Query-Count и Server-Timing,
+ * пишет в метрики по шаблону пути и предупреждает в логе о похожих на N+1 повторах одного запроса.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryStatsFilter extends OncePerRequestFilter {
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatWarnThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${filmorate.queries.repeat-warn-threshold:10}") int repeatWarnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatWarnThreshold = repeatWarnThreshold;
+    }
+
+    // Заголовки нужно выставить до записи тела, поэтому для ответов с телом их пишет QueryStatsResponseAdvice,
+    // а здесь — только если ответ ещё не отправлен (пустое тело)
+    private static void writeHeaders(QueryStats stats, HttpServletResponse response) {
+        response.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getCount()));
+        response.setHeader(SERVER_TIMING_HEADER, serverTiming(stats));
+    }
+
+    static String serverTiming(QueryStats stats) {
+        return String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d queries\"", stats.getMillis(), stats.getCount());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryStats.stop();
+            if (!response.isCommitted()) {
+                writeHeaders(stats, response);
+            }
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        String uri = uri(request);
+        DistributionSummary.builder("filmorate.http.queries")
+                .description("Число SQL-запросов на HTTP-запрос")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getCount());
+        Timer.builder("filmorate.http.db.time")
+                .description("Суммарное время SQL-запросов на HTTP-запрос")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        if (repeated != null && repeated.getValue() >= repeatWarnThreshold) {
+            meterRegistry.counter("filmorate.http.repeated.queries", "method", request.getMethod(), "uri", uri)
+                    .increment();
+            log.warn("Возможный N+1: {} {} выполнил один запрос {} раз (всего запросов {}): {}",
+                    request.getMethod(), uri, repeated.getValue(), stats.getCount(), repeated.getKey().strip());
+        }
+    }
+
+    // Шаблон пути вместо фактического, чтобы id не раздували число меток
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
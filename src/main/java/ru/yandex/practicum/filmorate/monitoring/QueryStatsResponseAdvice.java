@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Выставляет заголовки счётчика запросов непосредственно перед сериализацией тела ответа,
+ * когда все обращения к БД обработчика уже выполнены.
+ */
+@ControllerAdvice
+public class QueryStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            response.getHeaders().set(QueryStatsFilter.QUERY_COUNT_HEADER, String.valueOf(stats.getCount()));
+            response.getHeaders().set(QueryStatsFilter.SERVER_TIMING_HEADER, QueryStatsFilter.serverTiming(stats));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+
+/**
+ * Таймер filmorate.storage на каждый метод интерфейсов хранилищ (FilmStorage, UserStorage, ReviewStorage и т.д.).
+ * Метки — только интерфейс, метод, исход и класс исключения, без аргументов и id.
+ * Методы, помеченные {@link NotTimed} (справочники в памяти), не замеряются.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StorageMetricsConfig {
+    private static final String STORAGE_PACKAGE = "ru.yandex.practicum.filmorate.storage";
+
+    // Советник инфраструктурной роли подхватывается тем же автопрокси, что и @Transactional,
+    // поэтому отдельный AspectJ не нужен. Порядок выше транзакционного: в замер входит и коммит
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor storageTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        StaticMethodMatcherPointcutAdvisor advisor = new StaticMethodMatcherPointcutAdvisor() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return storageInterface(method, targetClass).isPresent();
+            }
+        };
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        advisor.setAdvice((MethodInterceptor) invocation -> {
+            Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
+            String storage = storageInterface(invocation.getMethod(), targetClass)
+                    .map(Class::getSimpleName)
+                    .orElse("UNKNOWN");
+            Timer.Sample sample = Timer.start(meterRegistry.getObject());
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("filmorate.storage")
+                        .description("Время выполнения методов хранилищ")
+                        .tags("storage", storage,
+                                "method", invocation.getMethod().getName(),
+                                "outcome", "none".equals(exception) ? "SUCCESS" : "ERROR",
+                                "exception", exception)
+                        .register(meterRegistry.getObject()));
+            }
+        });
+        return advisor;
+    }
+
+    // Интерфейс хранилища, объявляющий метод; методы вне интерфейсов (служебные, индексы) и @NotTimed не замеряются
+    private static Optional<Class<?>> storageInterface(Method method, Class<?> targetClass) {
+        if (targetClass == null || !Modifier.isPublic(method.getModifiers())) {
+            return Optional.empty();
+        }
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+            if (!type.getPackageName().startsWith(STORAGE_PACKAGE)) {
+                continue;
+            }
+            Method declared = ClassUtils.getMethodIfAvailable(type, method.getName(), method.getParameterTypes());
+            if (declared != null) {
+                return declared.isAnnotationPresent(NotTimed.class) ? Optional.empty() : Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+}
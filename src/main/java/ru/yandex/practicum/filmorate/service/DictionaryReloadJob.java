@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDao;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDao;
+
+/**
+ * Перечитывает справочники MPA и жанров, чтобы ручные изменения таблиц mpa_ratings и genres
+ * становились видны без перезапуска приложения.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DictionaryReloadJob {
+    private final MpaDao mpaDao;
+    private final GenreDao genreDao;
+
+    @Scheduled(cron = "${filmorate.dictionaries.reload-cron:0 */5 * * * *}")
+    public void reload() {
+        mpaDao.reload();
+        genreDao.reload();
+        log.debug("Справочники MPA и жанров перечитаны");
+    }
+}
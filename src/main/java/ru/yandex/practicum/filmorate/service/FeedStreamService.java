@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.event.FeedPublisher;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Живая лента пользователя по Server-Sent Events.
+ * <p>
+ * Каждое подключение обслуживает свой виртуальный поток: при переподключении он сначала досылает из БД
+ * события после Last-Event-ID, затем ждёт новые из FeedPublisher. Новое подключение без Last-Event-ID
+ * историю не получает: отсчёт идёт от последнего события ленты на момент подключения. Подписка оформляется до чтения истории, а события
+ * с id не больше уже отправленного пропускаются, поэтому на стыке нет ни пропусков, ни повторов.
+ * Ожидающий виртуальный поток не занимает поток ОС, так что простаивающих подключений может быть много.
+ * <p>
+ * Если клиент не успевает читать и его очередь переполняется, соединение закрывается:
+ * клиент переподключится с Last-Event-ID и дочитает пропущенное из БД.
+ */
+@Service
+@Slf4j
+public class FeedStreamService {
+    private static final int REPLAY_PAGE_SIZE = 500;
+
+    private final EventStorage eventStorage;
+    private final FeedPublisher feedPublisher;
+    private final UserService userService;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final int queueCapacity;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FeedStreamService(@Qualifier("EventDbStorage") EventStorage eventStorage,
+                             FeedPublisher feedPublisher,
+                             UserService userService,
+                             @Value("${filmorate.feed.stream.timeout:PT30M}") Duration timeout,
+                             @Value("${filmorate.feed.stream.heartbeat:PT30S}") Duration heartbeat,
+                             @Value("${filmorate.feed.stream.queue-capacity:1000}") int queueCapacity) {
+        this.eventStorage = eventStorage;
+        this.feedPublisher = feedPublisher;
+        this.userService = userService;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public SseEmitter subscribe(int userId, Integer lastEventId) {
+        userService.checkUserExists(userId);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(userId, emitter);
+        subscription.unsubscribe = feedPublisher.subscribe(userId, subscription::offer);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        executor.execute(() -> subscription.run(lastEventId));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private class Subscription {
+        private final int userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private volatile Runnable unsubscribe;
+        private volatile boolean closed;
+        private int lastSentEventId;
+
+        Subscription(int userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        // Вызывается в потоке записи событий, поэтому не блокируется
+        void offer(Event event) {
+            if (!queue.offer(event)) {
+                log.warn("Подписчик ленты пользователя {} не успевает читать, соединение закрывается", userId);
+                closed = true;
+            }
+        }
+
+        void close() {
+            closed = true;
+            unsubscribe.run();
+        }
+
+        void run(Integer afterEventId) {
+            try {
+                lastSentEventId = afterEventId != null ? afterEventId : latestEventId();
+                replay();
+                while (!closed) {
+                    Event event = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        send(event);
+                    }
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился
+                log.debug("Поток ленты пользователя {} закрыт: {}", userId, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                close();
+            }
+        }
+
+        private int latestEventId() {
+            List<Event> latest = eventStorage.getFeed(userId, null, null, 1, true);
+            return latest.isEmpty() ? 0 : latest.getFirst().getEventId();
+        }
+
+        private void replay() throws IOException {
+            List<Event> page;
+            do {
+                page = eventStorage.getFeed(userId, lastSentEventId, null, REPLAY_PAGE_SIZE, false);
+                for (Event event : page) {
+                    send(event);
+                }
+            } while (page.size() == REPLAY_PAGE_SIZE && !closed);
+        }
+
+        private void send(Event event) throws IOException {
+            if (event.getEventId() <= lastSentEventId) {
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getEventId()))
+                    .name("event")
+                    .data(event, MediaType.APPLICATION_JSON));
+            lastSentEventId = event.getEventId();
+        }
+    }
+}
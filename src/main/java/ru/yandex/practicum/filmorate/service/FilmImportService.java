@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDao;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDao;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDao;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетная загрузка каталога. Фильмы читаются из входного потока по одному и копятся в пачки по chunk-size;
+ * каждая пачка проверяется и вставляется пакетными запросами в своей транзакции. Ошибка одного фильма
+ * не мешает остальным, ошибка записи пачки помечает неудачными только её фильмы.
+ */
+@Service
+@Slf4j
+public class FilmImportService {
+
+    private final FilmStorage filmStorage;
+    private final MpaDao mpaDao;
+    private final GenreDao genreDao;
+    private final DirectorDao directorDao;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public FilmImportService(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
+                             MpaDao mpaDao,
+                             GenreDao genreDao,
+                             DirectorDao directorDao,
+                             Validator validator,
+                             @Value("${filmorate.films.bulk.chunk-size:1000}") int chunkSize) {
+        this.filmStorage = filmStorage;
+        this.mpaDao = mpaDao;
+        this.genreDao = genreDao;
+        this.directorDao = directorDao;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    // Элемент итератора — фильм либо исключение разбора, которое становится ошибкой этого элемента
+    public BulkImportResult importFilms(Iterator<Object> source) {
+        long start = System.nanoTime();
+        BulkImportResult result = new BulkImportResult();
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (source.hasNext()) {
+            Object item = source.next();
+            if (item instanceof Film film) {
+                chunk.add(film);
+                chunkIndexes.add(index);
+            } else {
+                result.getItems().add(BulkItemResult.failed(index, "Некорректный JSON: " + item));
+            }
+            index++;
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, chunkIndexes, result);
+                chunk.clear();
+                chunkIndexes.clear();
+            }
+        }
+        importChunk(chunk, chunkIndexes, result);
+
+        result.getItems().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        result.setTotal(index);
+        result.setImported((int) result.getItems().stream().filter(item -> item.getId() != null).count());
+        result.setFailed(result.getTotal() - result.getImported());
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        result.setRowsPerSecond(result.getElapsedMillis() == 0
+                ? result.getRowsWritten()
+                : result.getRowsWritten() * 1000.0 / result.getElapsedMillis());
+        log.info("Пакетная загрузка фильмов: {} из {} загружено, {} строк за {} мс ({} строк/с)",
+                result.getImported(), result.getTotal(), result.getRowsWritten(), result.getElapsedMillis(),
+                Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    private void importChunk(List<Film> chunk, List<Integer> indexes, BulkImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<Integer> directorIds = chunk.stream()
+                .filter(film -> film.getDirectors() != null)
+                .flatMap(film -> film.getDirectors().stream())
+                .filter(Objects::nonNull)
+                .map(Director::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, Director> directors = directorDao.findDirectorsByIds(directorIds).stream()
+                .collect(Collectors.toMap(Director::getId, Function.identity()));
+
+        List<Film> valid = new ArrayList<>(chunk.size());
+        List<Integer> validIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i), directors);
+            if (error == null) {
+                valid.add(chunk.get(i));
+                validIndexes.add(indexes.get(i));
+            } else {
+                result.getItems().add(BulkItemResult.failed(indexes.get(i), error));
+            }
+        }
+        try {
+            result.setRowsWritten(result.getRowsWritten() + filmStorage.addFilms(valid));
+            for (int i = 0; i < valid.size(); i++) {
+                result.getItems().add(BulkItemResult.created(validIndexes.get(i), valid.get(i).getId()));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Пачка из {} фильмов не записана: {}", valid.size(), e.getMessage());
+            validIndexes.forEach(i -> result.getItems().add(
+                    BulkItemResult.failed(i, "Ошибка записи пачки: " + e.getMostSpecificCause().getMessage())));
+        }
+    }
+
+    // Те же проверки, что и у POST /films, плюс существование MPA, жанров и режиссёров
+    private String validate(Film film, Map<Integer, Director> directors) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (film.getMpa() == null || film.getMpa().getId() == null
+                || mpaDao.findByIdMpa(film.getMpa().getId()).isEmpty()) {
+            return "MPA не указан или не найден";
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre == null || genre.getId() == null || genreDao.findGenreById(genre.getId()).isEmpty()) {
+                    return "Жанр " + (genre == null ? null : genre.getId()) + " не найден";
+                }
+            }
+        }
+        if (film.getDirectors() != null) {
+            List<Director> resolved = new ArrayList<>(film.getDirectors().size());
+            for (Director director : film.getDirectors()) {
+                Director existing = director == null ? null : directors.get(director.getId());
+                if (existing == null) {
+                    return "Режиссёр " + (director == null ? null : director.getId()) + " не найден";
+                }
+                resolved.add(existing);
+            }
+            film.setDirectors(resolved);
+        }
+        return null;
+    }
+}
@@ -7,13 +7,14 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
-import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -21,67 +22,74 @@ public class FilmService {
     private final FilmStorage filmStorage;
     private final UserService userService;
     private final EventStorage eventStorage;
+    private final RecommendationService recommendationService;
 
     @Autowired
     public FilmService(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
                        @Qualifier("EventDbStorage") EventStorage eventStorage,
-                       UserService userService) {
+                       UserService userService,
+                       RecommendationService recommendationService) {
         this.filmStorage = filmStorage;
         this.userService = userService;
         this.eventStorage = eventStorage;
+        this.recommendationService = recommendationService;
     }
 
     public Collection<Film> getAllFilms() {
         return filmStorage.getFilms();
     }
 
+    public void streamAllFilms(Consumer<Film> consumer) {
+        filmStorage.streamFilms(consumer);
+    }
+
+    public Page<Film> getFilmsPage(int afterId, int limit) {
+        PageLimits.checkLimit(limit);
+        return Page.of(filmStorage.getFilms(afterId, limit), limit, Film::getId);
+    }
+
     public Film getFilmOrThrow(int id) {
         return filmStorage.findFilmById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден"));
     }
 
     public Film createFilm(Film film) {
-        checkReleaseDate(film);
         log.info("СОздание фильма: {}", film);
         return filmStorage.addFilm(film);
     }
 
     public Film updateFilm(Film film) {
-        checkReleaseDate(film);
-        getFilmOrThrow(film.getId());
+        // Существование фильма проверяет само хранилище по числу обновлённых строк
         log.info("Обновление фильма: {}", film);
         return filmStorage.updateFilm(film);
     }
 
     public void addLike(int filmId, int userId) {
-        userService.getUserOrThrow(userId);
+        userService.checkUserExists(userId);
         log.debug("Пользователь {} лайкнул фильм {}", userId, filmId);
-        filmStorage.addLike(filmId, userId);
-
-        eventStorage.addEvent(userId, "LIKE", "ADD", filmId);
+        // Повторный лайк ничего не меняет: ни событий, ни пересчёта рекомендаций
+        if (filmStorage.addLike(filmId, userId)) {
+            recommendationService.onLikeChanged(userId);
+            eventStorage.addEvent(userId, "LIKE", "ADD", filmId);
+        }
     }
 
     public void removeLike(int filmId, int userId) {
-        userService.getUserOrThrow(userId);
+        userService.checkUserExists(userId);
         log.debug("Пользователь {} удалил лайк к фильму {}", userId, filmId);
-        filmStorage.removeLike(filmId, userId);
-
-        eventStorage.addEvent(userId, "LIKE", "REMOVE", filmId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            recommendationService.onLikeChanged(userId);
+            eventStorage.addEvent(userId, "LIKE", "REMOVE", filmId);
+        }
     }
 
     public List<Film> getCommonFilmsWithFriend(int userId, int friendId) {
-        userService.getUserOrThrow(userId);
-        userService.getUserOrThrow(friendId);
+        userService.checkUserExists(userId);
+        userService.checkUserExists(friendId);
         log.info("Запрос общих с другом фильмов. userId: {}, friendId: {}", userId, friendId);
         return filmStorage.getCommonFilmsWithFriend(userId, friendId);
     }
 
-    private void checkReleaseDate(Film film) {
-        if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
-            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
-        }
-    }
-
     public List<Film> getMostPopularFilms(int count, Integer genreId, Integer year) {
         log.info("Запрос популярных фильмов. Количество: {}, жанр: {}, год: {}", count, genreId, year);
         return filmStorage.findMostPopularFilms(count, genreId, year);
@@ -97,13 +105,17 @@ public class FilmService {
         return filmStorage.getFilmsByDirector(directorId, sortBy);
     }
 
-    public List<Film> searchFilms(String query, String by) {
+    // Без count возвращаются все найденные фильмы, как и раньше
+    public List<Film> searchFilms(String query, String by, Integer count) {
+        if (count != null && count <= 0) {
+            throw new ValidationException("count должен быть положительным");
+        }
         List<String> byList = Arrays.stream(by.split(","))
                 .map(String::trim)
                 .map(String::toLowerCase)
                 .toList();
         log.info("Поиск фильмов по запросу '{}', по полям {}", query, byList);
 
-        return filmStorage.searchFilms(query, byList);
+        return filmStorage.searchFilms(query, byList, count == null ? Integer.MAX_VALUE : count);
     }
 }
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+
+/**
+ * Сверяет денормализованный счётчик films.likes_count с таблицей film_likes
+ * на случай ручных правок в БД или сбоев между запросами, а затем рейтинг популярности в памяти — со счётчиками.
+ */
+@Service
+@Slf4j
+public class LikesCountRepairJob {
+    private final FilmStorage filmStorage;
+    private final PopularityIndex popularityIndex;
+
+    public LikesCountRepairJob(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
+                               PopularityIndex popularityIndex) {
+        this.filmStorage = filmStorage;
+        this.popularityIndex = popularityIndex;
+    }
+
+    @Scheduled(cron = "${filmorate.likes-count.repair-cron:0 0 4 * * *}")
+    public void repair() {
+        int repaired = filmStorage.repairLikesCounts();
+        if (repaired > 0) {
+            log.warn("Исправлен счётчик лайков у {} фильмов", repaired);
+        } else {
+            log.info("Счётчики лайков совпадают с film_likes");
+        }
+        popularityIndex.checkConsistency();
+    }
+}
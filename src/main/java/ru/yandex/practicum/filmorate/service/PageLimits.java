@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+/**
+ * Ограничение размера страницы, общее для всех постраничных методов сервисов.
+ */
+public final class PageLimits {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private PageLimits() {
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationSnapshot;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Рекомендации отдаются из предрассчитанной таблицы user_recommendations.
+ * <p>
+ * Лайк помечает устаревшими рекомендации только самого пользователя, фоновая задача пересчитывает
+ * помеченных. У остальных пользователей, лайкавших тот же фильм, рекомендации меняются не сразу:
+ * их ограничивает freshness — рекомендации старше него не отдаются, а пересчитываются по запросу.
+ * Так же, в потоке запроса, считаются рекомендации «холодных» пользователей, для которых ещё ничего нет.
+ */
+@Service
+@Slf4j
+public class RecommendationService {
+    private final FilmStorage filmStorage;
+    private final RecommendationStorage recommendationStorage;
+    private final Duration freshness;
+    private final int batchSize;
+    private final ThreadPoolTaskExecutor executor;
+
+    public RecommendationService(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
+                                 RecommendationStorage recommendationStorage,
+                                 @Qualifier("recommendationRefreshExecutor") ThreadPoolTaskExecutor executor,
+                                 @Value("${filmorate.recommendations.freshness:PT10M}") Duration freshness,
+                                 @Value("${filmorate.recommendations.batch-size:500}") int batchSize) {
+        this.filmStorage = filmStorage;
+        this.recommendationStorage = recommendationStorage;
+        this.executor = executor;
+        this.freshness = freshness;
+        this.batchSize = batchSize;
+    }
+
+    public List<Film> getRecommendations(int userId) {
+        long staleBefore = System.currentTimeMillis() - freshness.toMillis();
+        List<Integer> filmIds = recommendationStorage.find(userId)
+                .filter(snapshot -> snapshot.getComputedAt() >= staleBefore)
+                .map(RecommendationSnapshot::getFilmIds)
+                .orElseGet(() -> refresh(userId));
+        return filmStorage.findFilmsByIds(filmIds);
+    }
+
+    public void onLikeChanged(int userId) {
+        recommendationStorage.markDirty(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.refresh-delay:PT30S}")
+    public void refreshDirty() throws InterruptedException {
+        List<Integer> userIds = recommendationStorage.findDirtyUsers(batchSize);
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Callable<Void>> tasks = userIds.stream()
+                .<Callable<Void>>map(userId -> () -> {
+                    try {
+                        refresh(userId);
+                    } catch (RuntimeException e) {
+                        log.warn("Не удалось пересчитать рекомендации пользователя {}", userId, e);
+                    }
+                    return null;
+                })
+                .toList();
+        executor.getThreadPoolExecutor().invokeAll(tasks);
+        log.info("Пересчитаны рекомендации {} пользователей", userIds.size());
+    }
+
+    private List<Integer> refresh(int userId) {
+        long startedAt = System.currentTimeMillis();
+        List<Integer> filmIds = filmStorage.getRecommendedFilmIds(userId);
+        recommendationStorage.save(userId, filmIds, startedAt);
+        return filmIds;
+    }
+}
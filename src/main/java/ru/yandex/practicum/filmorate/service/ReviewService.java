@@ -5,6 +5,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
@@ -67,12 +69,27 @@ public class ReviewService {
                 .orElseThrow(() -> new NotFoundException("Отзыв с id " + id + " не найден"));
     }
 
-    public List<Review> findByFilmId(Integer filmId, Integer count) {
-        if (count != null && count < 0) {
+    // Курсор — «useful:reviewId» последнего отзыва предыдущей страницы
+    public Page<Review> findPage(Integer filmId, String cursor, int count) {
+        if (count < 0) {
             throw new IllegalArgumentException("Count must be non-negative");
         }
-        int finalCount = count == null ? 10 : count;
-        return reviewStorage.findByFilmId(filmId, finalCount);
+        Integer afterUseful = null;
+        Integer afterReviewId = null;
+        if (cursor != null) {
+            String[] parts = cursor.split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException(cursor);
+                }
+                afterUseful = Integer.parseInt(parts[0]);
+                afterReviewId = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new ValidationException("Некорректный курсор: " + cursor);
+            }
+        }
+        List<Review> reviews = reviewStorage.findByFilmId(filmId, afterUseful, afterReviewId, count);
+        return Page.of(reviews, count, review -> review.getUseful() + ":" + review.getReviewId());
     }
 
     @Transactional
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+/**
+ * Раскладывает по лентам события авторов, опустившихся до порога раскладки. Выполняется в фоне,
+ * чтобы удаление из друзей или удаление пользователя не ждало перестройки лент подписчиков.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TimelineBackfillJob {
+    private final TimelineStorage timelineStorage;
+
+    @Scheduled(fixedDelayString = "${filmorate.timeline.backfill-delay:PT10S}")
+    public void backfill() {
+        int authors = timelineStorage.backfillPending();
+        if (authors > 0) {
+            log.info("События {} авторов разложены по лентам подписчиков", authors);
+        }
+    }
+}
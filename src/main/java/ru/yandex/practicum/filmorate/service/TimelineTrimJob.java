@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+/**
+ * Подрезает ленты друзей до последних capacity событий на пользователя.
+ * При записи лента не подрезается, чтобы не добавлять DELETE к каждому событию.
+ */
+@Service
+@Slf4j
+public class TimelineTrimJob {
+    private final TimelineStorage timelineStorage;
+    private final int capacity;
+
+    public TimelineTrimJob(TimelineStorage timelineStorage,
+                           @Value("${filmorate.timeline.capacity:1000}") int capacity) {
+        this.timelineStorage = timelineStorage;
+        this.capacity = capacity;
+    }
+
+    @Scheduled(cron = "${filmorate.timeline.trim-cron:0 */10 * * * *}")
+    public void trim() {
+        int removed = timelineStorage.trim(capacity);
+        log.info("Из лент друзей удалено {} старых записей", removed);
+    }
+}
@@ -3,44 +3,82 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class UserService {
+    public static final int MAX_SUGGESTIONS = 100;
+
     private final UserStorage userStorage;
     private final FilmStorage filmStorage;
     private final EventStorage eventStorage;
+    private final RecommendationService recommendationService;
+    private final TimelineStorage timelineStorage;
+    private final int suggestionsMaxFanOut;
+    private final int pathMaxDepth;
+    private final int pathMaxVisited;
 
     @Autowired
     public UserService(@Qualifier("UserDbStorage") UserStorage userStorage,
                        @Qualifier("FilmDbStorage") FilmStorage filmStorage,
-                       @Qualifier("EventDbStorage") EventStorage eventStorage) {
+                       @Qualifier("EventDbStorage") EventStorage eventStorage,
+                       RecommendationService recommendationService,
+                       TimelineStorage timelineStorage,
+                       @Value("${filmorate.friends.suggestions.max-fan-out:200}") int suggestionsMaxFanOut,
+                       @Value("${filmorate.friends.path.max-depth:6}") int pathMaxDepth,
+                       @Value("${filmorate.friends.path.max-visited:100000}") int pathMaxVisited) {
         this.userStorage = userStorage;
         this.filmStorage = filmStorage;
         this.eventStorage = eventStorage;
+        this.recommendationService = recommendationService;
+        this.timelineStorage = timelineStorage;
+        this.suggestionsMaxFanOut = suggestionsMaxFanOut;
+        this.pathMaxDepth = pathMaxDepth;
+        this.pathMaxVisited = pathMaxVisited;
     }
 
     public Collection<User> getAllUsers() {
         return userStorage.getUsers();
     }
 
+    public void streamAllUsers(Consumer<User> consumer) {
+        userStorage.streamUsers(consumer);
+    }
+
+    public Page<User> getUsersPage(int afterId, int limit) {
+        PageLimits.checkLimit(limit);
+        return Page.of(userStorage.getUsers(afterId, limit), limit, User::getId);
+    }
+
     public User getUserOrThrow(int id) {
         return userStorage.findUserById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
     }
 
+    public void checkUserExists(int id) {
+        if (!userStorage.existsById(id)) {
+            throw new NotFoundException("Пользователь с id " + id + " не найден");
+        }
+    }
+
     public User createUser(User user) {
         checkUserNameAndLogin(user);
         log.info("Создание пользователя: {}", user);
@@ -49,40 +87,62 @@ public class UserService {
 
     public User updateUser(User user) {
         checkUserNameAndLogin(user);
-        getUserOrThrow(user.getId());
+        checkUserExists(user.getId());
         log.info("Обновление пользователя: {}", user);
         return userStorage.updateUser(user);
     }
 
     public void addFriend(int userId, int friendId) {
         log.debug("Добавление в друзья {} -> {}", userId, friendId);
-        getUserOrThrow(userId);
-        getUserOrThrow(friendId);
+        checkUserExists(userId);
+        checkUserExists(friendId);
         userStorage.addFriend(userId, friendId);
         eventStorage.addEvent(userId, "FRIEND", "ADD", friendId);
     }
 
     public void removeFriend(int userId, int friendId) {
         log.debug("Удаление из друзей: {} -> {}", userId, friendId);
-        getUserOrThrow(userId);
-        getUserOrThrow(friendId);
+        checkUserExists(userId);
+        checkUserExists(friendId);
         userStorage.removeFriend(userId, friendId);
+        timelineStorage.onFollowerRemoved(friendId);
         eventStorage.addEvent(userId, "FRIEND", "REMOVE", friendId);
     }
 
     public List<User> getFriends(int userId) {
         log.info("Получение списка друзей пользователя с userId {}", userId);
-        getUserOrThrow(userId);
+        checkUserExists(userId);
         return userStorage.getFriends(userId);
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
         log.info("Получение общих друзей пользователей {} и {}", userId, otherId);
-        getUserOrThrow(userId);
-        getUserOrThrow(otherId);
+        checkUserExists(userId);
+        checkUserExists(otherId);
         return userStorage.getCommonFriends(userId, otherId);
     }
 
+    public List<FriendSuggestion> getFriendSuggestions(int userId, int count) {
+        log.info("Получение кандидатов в друзья для пользователя с userId {}", userId);
+        if (count <= 0 || count > MAX_SUGGESTIONS) {
+            throw new ValidationException("count должен быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        checkUserExists(userId);
+        return userStorage.getFriendSuggestions(userId, count, suggestionsMaxFanOut);
+    }
+
+    public List<User> getFriendshipPath(int userId, int otherId) {
+        log.info("Поиск цепочки дружбы от пользователя {} до {}", userId, otherId);
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        List<User> path = userStorage.getFriendshipPath(userId, otherId, pathMaxDepth, pathMaxVisited);
+        if (path.isEmpty()) {
+            throw new NotFoundException("Цепочка дружбы от пользователя " + userId + " до " + otherId
+                    + " длиной не больше " + pathMaxDepth + " не найдена");
+        }
+        return path;
+    }
+
     private void checkUserNameAndLogin(User user) {
         if (user.getLogin().contains(" ")) {
             throw new ValidationException("логин не может содержать пробелы");
@@ -93,19 +153,37 @@ public class UserService {
     }
 
     public List<Film> getRecommendations(int userId) {
-        getUserOrThrow(userId);
-        return filmStorage.getRecommendations(userId);
+        checkUserExists(userId);
+        return recommendationService.getRecommendations(userId);
     }
 
+    @Transactional
     public void removeUser(int userId) {
-        getUserOrThrow(userId);
+        checkUserExists(userId);
+        List<Integer> followed = userStorage.getFriends(userId).stream().map(User::getId).toList();
+        filmStorage.removeLikesOfUser(userId);
         userStorage.removeUser(userId);
+        followed.forEach(timelineStorage::onFollowerRemoved);
     }
 
     public List<Event> getFeed(int userId) {
-        getUserOrThrow(userId);
+        checkUserExists(userId);
         return eventStorage.getFeed(userId);
     }
+
+    public Page<Event> getFeedPage(int userId, Integer afterEventId, Integer beforeEventId, int limit,
+                                   boolean newestFirst) {
+        PageLimits.checkLimit(limit);
+        checkUserExists(userId);
+        List<Event> events = eventStorage.getFeed(userId, afterEventId, beforeEventId, limit, newestFirst);
+        return Page.of(events, limit, Event::getEventId);
+    }
+
+    public Page<Event> getTimelinePage(int userId, Integer beforeEventId, int limit) {
+        PageLimits.checkLimit(limit);
+        checkUserExists(userId);
+        return Page.of(timelineStorage.getTimeline(userId, beforeEventId, limit), limit, Event::getEventId);
+    }
 }
 
 
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage.director;
 
 import ru.yandex.practicum.filmorate.model.Director;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +16,7 @@ public interface DirectorDao {
 
     Optional<Director> getDirectorById(int id);
 
+    List<Director> findDirectorsByIds(Collection<Integer> ids);
+
     void deleteDirector(int id);
 }
@@ -7,11 +7,14 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,7 @@ import java.util.Optional;
 public class DirectorDbStorage implements DirectorDao {
 
     private final JdbcTemplate jdbcTemplate;
+    private final FilmSearchIndex filmSearchIndex;
 
     @Override
     public Director createDirector(Director director) {
@@ -35,6 +39,7 @@ public class DirectorDbStorage implements DirectorDao {
         }, keyHolder);
 
         director.setId(keyHolder.getKey().intValue());
+        filmSearchIndex.onDirectorSaved(director.getId(), director.getName());
         return director;
     }
 
@@ -43,6 +48,7 @@ public class DirectorDbStorage implements DirectorDao {
         jdbcTemplate.update("UPDATE directors SET name = ? WHERE id = ?",
                 director.getName(),
                 director.getId());
+        filmSearchIndex.onDirectorSaved(director.getId(), director.getName());
         return director;
     }
 
@@ -62,9 +68,19 @@ public class DirectorDbStorage implements DirectorDao {
         }
     }
 
+    @Override
+    public List<Director> findDirectorsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query("SELECT * FROM directors WHERE id = ANY(?)", this::mapToRowDirector,
+                (Object) ids.toArray(Integer[]::new));
+    }
+
     @Override
     public void deleteDirector(int id) {
         jdbcTemplate.update("DELETE FROM directors WHERE id = ?", id);
+        filmSearchIndex.onDirectorRemoved(id);
     }
 
     private Director mapToRowDirector(ResultSet rs, int rowNum) throws SQLException {
@@ -17,34 +17,46 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EventDbStorage implements EventStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final EventWriter eventWriter;
 
     @Override
     public void addEvent(int userId, String eventType, String operation, int entityId) {
-        String sql = """
-                INSERT INTO events (TIMESTAMP, USER_ID, EVENT_TYPE, OPERATION, ENTITY_ID)
-                VALUES (?, ?, ?, ?, ?)
-                """;
-        jdbcTemplate.update(sql,
-                System.currentTimeMillis(),
-                userId,
-                eventType,
-                operation,
-                entityId
-                );
-        log.info("addEvent called: userId={}, eventType={}, operation={}, entityId={}",
+        eventWriter.write(userId, eventType, operation, entityId);
+        log.debug("addEvent called: userId={}, eventType={}, operation={}, entityId={}",
                 userId, eventType, operation, entityId);
     }
 
     @Override
     public List<Event> getFeed(int userId) {
+        eventWriter.awaitFlushed(userId);
         String sql = """
                 SELECT * FROM events
                 WHERE USER_ID = ?
-                ORDER BY event_id
+                ORDER BY user_id, event_id
                 """;
         return jdbcTemplate.query(sql, this::mapRowToEvent, userId);
     }
 
+    @Override
+    public List<Event> getFeed(int userId, Integer afterEventId, Integer beforeEventId, int limit,
+                               boolean newestFirst) {
+        eventWriter.awaitFlushed(userId);
+        // Обе границы всегда участвуют в условии, чтобы поиск шёл по диапазону индекса (user_id, event_id).
+        // user_id в ORDER BY нужен H2, чтобы взять строки в порядке индекса и остановиться после LIMIT
+        String direction = newestFirst ? "DESC" : "ASC";
+        String sql = """
+                SELECT * FROM events
+                WHERE USER_ID = ? AND event_id > ? AND event_id < ?
+                ORDER BY user_id %s, event_id %s
+                LIMIT ?
+                """.formatted(direction, direction);
+        return jdbcTemplate.query(sql, this::mapRowToEvent,
+                userId,
+                afterEventId == null ? 0 : afterEventId,
+                beforeEventId == null ? Integer.MAX_VALUE : beforeEventId,
+                limit);
+    }
+
     private Event mapRowToEvent(ResultSet rs, int rowNum) throws SQLException {
         Event event = new Event();
         event.setEventId(rs.getInt("event_id"));
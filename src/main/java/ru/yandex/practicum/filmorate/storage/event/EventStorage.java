@@ -9,4 +9,9 @@ public interface EventStorage {
     void addEvent(int userId, String eventType, String operation, int entityId);
 
     List<Event> getFeed(int userId);
+
+    /**
+     * Страница ленты с event_id в интервале (afterEventId, beforeEventId); null — без границы.
+     */
+    List<Event> getFeed(int userId, Integer afterEventId, Integer beforeEventId, int limit, boolean newestFirst);
 }
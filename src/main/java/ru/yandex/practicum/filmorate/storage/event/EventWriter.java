@@ -0,0 +1,323 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Запись событий ленты.
+ * <p>
+ * В режиме SYNC событие вставляется сразу в потоке запроса. В режиме ASYNC оно кладётся в ограниченную
+ * очередь, которую один фоновый поток разбирает пакетными INSERT. Порядок событий сохраняется.
+ * Асинхронная запись идёт вне транзакции запроса: событие останется, даже если транзакция откатится.
+ * <p>
+ * Если очередь заполнена, поведение задаёт overflow-policy: BLOCK — поток запроса ждёт места,
+ * WRITE_THROUGH — событие пишется синхронно в обход очереди, DROP — событие отбрасывается с предупреждением.
+ * При остановке приложения очередь дописывается до конца (не дольше shutdown-timeout).
+ * <p>
+ * Чтение ленты ждёт только ещё не записанные события самого читателя и не дольше flush-timeout;
+ * события других пользователей в режиме ASYNC появляются в ленте с задержкой (eventual consistency).
+ * <p>
+ * Вместе с событием в той же транзакции заполняются ленты друзей автора (TimelineStorage.fanOut),
+ * после фиксации событие передаётся подписчикам FeedPublisher.
+ */
+@Slf4j
+@Component
+public class EventWriter {
+    private static final String INSERT_SQL = """
+            INSERT INTO events (TIMESTAMP, USER_ID, EVENT_TYPE, OPERATION, ENTITY_ID)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    public enum Mode { SYNC, ASYNC }
+
+    public enum OverflowPolicy { BLOCK, WRITE_THROUGH, DROP }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimelineStorage timelineStorage;
+    private final FeedPublisher feedPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Mode mode;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final Duration flushTimeout;
+    private final BlockingQueue<PendingEvent> queue;
+    // Сколько событий каждого пользователя передано в очередь и ещё не записано
+    private final Map<Integer, Integer> pendingByUser = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    public EventWriter(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       TimelineStorage timelineStorage,
+                       FeedPublisher feedPublisher,
+                       @Value("${filmorate.events.write-mode:SYNC}") Mode mode,
+                       @Value("${filmorate.events.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                       @Value("${filmorate.events.queue-capacity:10000}") int queueCapacity,
+                       @Value("${filmorate.events.batch-size:500}") int batchSize,
+                       @Value("${filmorate.events.shutdown-timeout:PT10S}") Duration shutdownTimeout,
+                       @Value("${filmorate.events.flush-timeout:PT2S}") Duration flushTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timelineStorage = timelineStorage;
+        this.feedPublisher = feedPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = mode;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.flushTimeout = flushTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode == Mode.ASYNC) {
+            running = true;
+            worker = new Thread(this::drain, "event-writer");
+            worker.setDaemon(true);
+            worker.start();
+            log.info("Асинхронная запись событий запущена: очередь {}, пакет {}, при переполнении {}",
+                    queue.remainingCapacity(), batchSize, overflowPolicy);
+        }
+    }
+
+    public void write(int userId, String eventType, String operation, int entityId) {
+        PendingEvent event = new PendingEvent(System.currentTimeMillis(), userId, eventType, operation, entityId);
+        if (!running) {
+            insert(event);
+            return;
+        }
+        pendingByUser.merge(userId, 1, Integer::sum);
+        boolean queued = switch (overflowPolicy) {
+            case BLOCK -> put(event);
+            case WRITE_THROUGH, DROP -> queue.offer(event);
+        };
+        if (queued) {
+            return;
+        }
+        markWritten(List.of(event));
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            log.warn("Очередь событий переполнена, событие отброшено ({} всего): userId={}, {} {} {}",
+                    dropped.incrementAndGet(), userId, eventType, operation, entityId);
+        } else {
+            insert(event);
+        }
+    }
+
+    /**
+     * Ждёт, пока будут записаны события пользователя, переданные до вызова, чтобы он видел в ленте
+     * свои только что совершённые действия. Очередь других пользователей не ждёт; по истечении
+     * flush-timeout лента читается как есть.
+     */
+    public void awaitFlushed(int userId) {
+        if (!running || !pendingByUser.containsKey(userId)) {
+            return;
+        }
+        long nanos = flushTimeout.toNanos();
+        flushLock.lock();
+        try {
+            while (pendingByUser.containsKey(userId) && nanos > 0) {
+                nanos = flushed.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.join(shutdownTimeout.toMillis());
+        if (worker.isAlive()) {
+            log.error("Запись событий не завершилась за {}, в очереди осталось {}", shutdownTimeout, queue.size());
+        } else {
+            // События, попавшие в очередь одновременно с остановкой, дописываются здесь
+            List<PendingEvent> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            writeBatch(rest);
+            log.info("Асинхронная запись событий остановлена, очередь дописана");
+        }
+    }
+
+    private boolean put(PendingEvent event) {
+        try {
+            queue.put(event);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        // После остановки running очередь дописывается до конца
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Поток записи событий прерван, в очереди осталось {}", queue.size());
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка записи пакета событий", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingEvent> batch) {
+        try {
+            if (!batch.isEmpty()) {
+                insertBatch(batch);
+            }
+        } finally {
+            markWritten(batch);
+        }
+    }
+
+    // Снимает события с учёта и будит читателей ленты, ждущих в awaitFlushed
+    private void markWritten(List<PendingEvent> events) {
+        for (PendingEvent event : events) {
+            pendingByUser.computeIfPresent(event.userId(), (userId, count) -> count == 1 ? null : count - 1);
+        }
+        flushLock.lock();
+        try {
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void insertBatch(List<PendingEvent> events) {
+        try {
+            // Пакет в одной транзакции: при ошибке откатывается целиком и не задваивается при записи по одному
+            transactionTemplate.executeWithoutResult(status -> {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"event_id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                PendingEvent event = events.get(i);
+                                ps.setLong(1, event.timestamp());
+                                ps.setInt(2, event.userId());
+                                ps.setString(3, event.eventType());
+                                ps.setString(4, event.operation());
+                                ps.setInt(5, event.entityId());
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return events.size();
+                            }
+                        }, keyHolder);
+                List<Map<String, Object>> keys = keyHolder.getKeyList();
+                List<Event> written = new ArrayList<>(events.size());
+                for (int i = 0; i < events.size(); i++) {
+                    int eventId = ((Number) keys.get(i).values().iterator().next()).intValue();
+                    written.add(events.get(i).toEvent(eventId));
+                }
+                timelineStorage.fanOut(written);
+                publishAfterCommit(written);
+            });
+            log.debug("Записано событий: {}", events.size());
+        } catch (DataAccessException e) {
+            // Например, пользователь удалён раньше, чем записалось его событие: пишем по одному,
+            // чтобы одна ошибка не теряла весь пакет
+            log.warn("Пакет из {} событий не записан, пишем по одному: {}", events.size(), e.getMessage());
+            for (PendingEvent event : events) {
+                try {
+                    insert(event);
+                } catch (DataAccessException single) {
+                    log.error("Событие не записано: {}: {}", event, single.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(PendingEvent event) {
+        transactionTemplate.executeWithoutResult(status -> {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"event_id"});
+                ps.setLong(1, event.timestamp());
+                ps.setInt(2, event.userId());
+                ps.setString(3, event.eventType());
+                ps.setString(4, event.operation());
+                ps.setInt(5, event.entityId());
+                return ps;
+            }, keyHolder);
+            List<Event> written = List.of(event.toEvent(keyHolder.getKey().intValue()));
+            timelineStorage.fanOut(written);
+            publishAfterCommit(written);
+        });
+    }
+
+    // Подписчики получают событие, только когда оно видно в БД: иначе при переподключении
+    // по Last-Event-ID клиент мог бы не найти его или получить повторно
+    private void publishAfterCommit(List<Event> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            feedPublisher.publish(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                feedPublisher.publish(events);
+            }
+        });
+    }
+
+    private record PendingEvent(long timestamp, int userId, String eventType, String operation, int entityId) {
+        Event toEvent(int eventId) {
+            return new Event(eventId, timestamp, userId, eventType, operation, entityId);
+        }
+    }
+}
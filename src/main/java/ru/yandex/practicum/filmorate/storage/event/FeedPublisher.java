@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Подписки на новые события ленты пользователя. EventWriter публикует события после фиксации транзакции,
+ * в которой они записаны. Подписчик вызывается в потоке записи, поэтому не должен блокироваться.
+ */
+@Component
+public class FeedPublisher {
+    private final Map<Integer, Set<Consumer<Event>>> subscribers = new ConcurrentHashMap<>();
+
+    // Возвращает действие для отмены подписки
+    public Runnable subscribe(int userId, Consumer<Event> subscriber) {
+        subscribers.computeIfAbsent(userId, k -> new CopyOnWriteArraySet<>()).add(subscriber);
+        return () -> subscribers.computeIfPresent(userId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void publish(List<Event> events) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Event event : events) {
+            Set<Consumer<Event>> userSubscribers = subscribers.get(event.getUserId());
+            if (userSubscribers != null) {
+                userSubscribers.forEach(subscriber -> subscriber.accept(event));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+}
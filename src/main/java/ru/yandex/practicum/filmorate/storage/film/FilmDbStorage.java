@@ -2,84 +2,230 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDao;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDao;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Date;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 @Qualifier("FilmDbStorage")
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final String INSERT_FILM_SQL = """
+            INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)
+            """;
 
     private final JdbcTemplate jdbcTemplate;
     private final DirectorDbStorage directorDbStorage;
-
+    private final MpaDao mpaDao;
+    private final GenreDao genreDao;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final LikeMatrix likeMatrix;
+
+    // Одиночный фильм пишется тем же путём, что и пакетная загрузка: связи — пакетными запросами,
+    // жанры для ответа — из справочника, без повторного чтения
     @Override
+    @Transactional
     public Film addFilm(Film film) {
-        String sql = """
-                INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)
-                """;
+        addFilms(List.of(film));
+        return film;
+    }
+
+    // Фильмы, жанры и режиссёры вставляются тремя пакетными запросами в одной транзакции.
+    // Ссылки на MPA, жанры и режиссёров должны быть проверены заранее
+    @Override
+    @Transactional
+    public int addFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return 0;
+        }
         KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_FILM_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setFilmValues(ps, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
 
-        jdbcTemplate.update(con -> {
-            PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, film.getName());
-            ps.setString(2, film.getDescription());
-            ps.setDate(3, Date.valueOf(film.getReleaseDate()));
-            ps.setInt(4, film.getDuration());
-            ps.setInt(5, film.getMpa().getId());
-            return ps;
-        }, keyHolder);
+        List<Object[]> genreRows = new ArrayList<>();
+        List<Object[]> directorRows = new ArrayList<>();
+        for (Film film : films) {
+            genreIds(film).forEach(genreId -> genreRows.add(new Object[]{film.getId(), genreId}));
+            directorIds(film).forEach(directorId -> directorRows.add(new Object[]{film.getId(), directorId}));
+        }
+        if (!genreRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+        }
+        if (!directorRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", directorRows);
+        }
 
-        film.setId(keyHolder.getKey().intValue());
-        updateGenres(film);
-        film.setGenres(getGenres(film.getId()));
-        updateDirectors(film);
-        return film;
+        List<FilmSearchIndex.SavedFilm> saved = new ArrayList<>(films.size());
+        for (Film film : films) {
+            film.setGenres(genreIds(film).stream().sorted().map(this::genre).collect(Collectors.toList()));
+            popularityIndex.onFilmSaved(film.getId(), film.getReleaseDate(), genreIds(film));
+            saved.add(new FilmSearchIndex.SavedFilm(film.getId(), film.getName(), directorIds(film)));
+        }
+        filmSearchIndex.onFilmsSaved(saved);
+        return films.size() + genreRows.size() + directorRows.size();
     }
 
+    private void setFilmValues(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setInt(4, film.getDuration());
+        ps.setInt(5, film.getMpa().getId());
+    }
+
+    // Связи с жанрами и режиссёрами не пересоздаются: текущие читаются одним запросом,
+    // а удаляются и вставляются пакетами только отличающиеся строки.
+    // Возвращаемый фильм собирается из запроса, прочитанных связей и справочников без повторной выборки
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
         String sql = """
                 UPDATE films SET name = ?, description = ?, release_date = ?,
                 duration = ?, mpa_rating_id = ? WHERE id = ?
                 """;
-        jdbcTemplate.update(sql,
+        int updated = jdbcTemplate.update(sql,
                 film.getName(),
                 film.getDescription(),
                 Date.valueOf(film.getReleaseDate()),
                 film.getDuration(),
                 film.getMpa().getId(),
                 film.getId());
-        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
-        jdbcTemplate.update("DELETE FROM film_directors WHERE film_id = ?", film.getId());
-        updateGenres(film);
-        film.setGenres(getGenres(film.getId()));
-        updateDirectors(film);
+        if (updated == 0) {
+            throw new NotFoundException("Фильм с id " + film.getId() + " не найден");
+        }
+
+        Set<Integer> currentGenres = new HashSet<>();
+        Map<Integer, Director> currentDirectors = new HashMap<>();
+        String linksSql = """
+                SELECT 'G' AS kind, genre_id AS id, NULL AS name FROM film_genres WHERE film_id = ?
+                UNION ALL
+                SELECT 'D', d.id, d.name FROM film_directors fd
+                JOIN directors d ON d.id = fd.director_id
+                WHERE fd.film_id = ?
+                """;
+        jdbcTemplate.query(linksSql, rs -> {
+            if ("G".equals(rs.getString("kind"))) {
+                currentGenres.add(rs.getInt("id"));
+            } else {
+                currentDirectors.put(rs.getInt("id"), new Director(rs.getInt("id"), rs.getString("name")));
+            }
+        }, film.getId(), film.getId());
+
+        List<Integer> genreIds = genreIds(film);
+        List<Integer> directorIds = directorIds(film);
+        syncLinks("film_genres", "genre_id", film.getId(), currentGenres, genreIds);
+        List<Integer> addedDirectors = syncLinks("film_directors", "director_id", film.getId(),
+                currentDirectors.keySet(), directorIds);
+
+        directorDbStorage.findDirectorsByIds(addedDirectors)
+                .forEach(director -> currentDirectors.put(director.getId(), director));
+        film.setMpa(mpa(film.getMpa().getId()));
+        film.setGenres(genreIds.stream().sorted().map(this::genre).collect(Collectors.toList()));
+        film.setDirectors(directorIds.stream()
+                .map(directorId -> currentDirectors.getOrDefault(directorId, new Director(directorId, null)))
+                .collect(Collectors.toList()));
+        popularityIndex.onFilmSaved(film.getId(), film.getReleaseDate(), genreIds);
+        filmSearchIndex.onFilmSaved(film.getId(), film.getName(), directorIds);
         return film;
     }
 
+    // Приводит связи фильма к целевому набору: пакет удалений лишних и пакет вставок недостающих.
+    // Возвращает id добавленных связей
+    private List<Integer> syncLinks(String table, String column, int filmId,
+                                    Set<Integer> current, List<Integer> target) {
+        Set<Integer> targetSet = new HashSet<>(target);
+        List<Object[]> removed = current.stream()
+                .filter(id -> !targetSet.contains(id))
+                .map(id -> new Object[]{filmId, id})
+                .toList();
+        List<Integer> added = target.stream().filter(id -> !current.contains(id)).toList();
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE film_id = ? AND " + column + " = ?", removed);
+        }
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (film_id, " + column + ") VALUES (?, ?)",
+                    added.stream().map(id -> new Object[]{filmId, id}).toList());
+        }
+        return added;
+    }
+
     @Override
     public Collection<Film> getFilms() {
-        return jdbcTemplate.query("SELECT * FROM films", this::mapToRowFilm);
+        return hydrate(jdbcTemplate.query("SELECT * FROM films", this::mapToRowFilm));
+    }
+
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        String sql = "SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?";
+        return hydrate(jdbcTemplate.query(sql, this::mapToRowFilm, afterId, limit));
+    }
+
+    // Однонаправленный курсор с ограниченным fetch size: в памяти держится только текущая пачка,
+    // которая догружается связями и сразу отдаётся потребителю
+    @Override
+    @Transactional(readOnly = true)
+    public void streamFilms(Consumer<Film> consumer) {
+        List<Film> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT * FROM films ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_CHUNK_SIZE);
+            return ps;
+        }, rs -> {
+            chunk.add(mapToRowFilm(rs, 0));
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                hydrate(chunk).forEach(consumer);
+                chunk.clear();
+            }
+        });
+        hydrate(chunk).forEach(consumer);
     }
 
     @Override
@@ -87,78 +233,103 @@ public class FilmDbStorage implements FilmStorage {
         String sql = "SELECT * FROM films WHERE id = ?";
         try {
             Film film = jdbcTemplate.queryForObject(sql, this::mapToRowFilm, id);
-            return Optional.ofNullable(film);
+            return Optional.ofNullable(film).map(f -> hydrate(List.of(f)).getFirst());
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    // films.likes_count меняется в той же транзакции, что и film_likes,
+    // и только если лайк действительно добавлен или удалён
     @Override
-    public void addLike(int filmId, int userId) {
-        String checkSql = """
-        SELECT COUNT(*) FROM film_likes WHERE film_id = ? AND user_id = ?
-    """;
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, filmId, userId);
-        if (count == null || count == 0) {
-            String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
-            jdbcTemplate.update(sql, filmId, userId);
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        // Вставка только при отсутствии строки: число вставленных строк и есть признак изменения.
+        // Если параллельный запрос успел вставить тот же лайк, ключ уже занят — состояние не изменилось
+        String sql = """
+                MERGE INTO film_likes fl
+                USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) AS v (film_id, user_id)
+                ON fl.film_id = v.film_id AND fl.user_id = v.user_id
+                WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (v.film_id, v.user_id)
+                """;
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(sql, filmId, userId);
+        } catch (DuplicateKeyException e) {
+            inserted = 0;
+        }
+        if (inserted == 0) {
+            return false;
         }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+        popularityIndex.onLikeChanged(filmId, 1);
+        likeMatrix.onLikeAdded(filmId, userId);
+        return true;
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+        popularityIndex.onLikeChanged(filmId, -1);
+        likeMatrix.onLikeRemoved(filmId, userId);
+        return true;
     }
 
+    // Каскадное удаление лайков вместе с пользователем не уменьшило бы films.likes_count,
+    // поэтому лайки удаляются заранее с пересчётом счётчиков
     @Override
-    public List<Film> getCommonFilmsWithFriend(int userId, int friendId) {
+    @Transactional
+    public void removeLikesOfUser(int userId) {
+        List<Integer> filmIds = jdbcTemplate.queryForList(
+                "SELECT film_id FROM film_likes WHERE user_id = ?", Integer.class, userId);
+        jdbcTemplate.update("""
+                UPDATE films SET likes_count = likes_count - 1
+                WHERE id IN (SELECT film_id FROM film_likes WHERE user_id = ?)
+                """, userId);
+        jdbcTemplate.update("DELETE FROM film_likes WHERE user_id = ?", userId);
+        filmIds.forEach(filmId -> {
+            popularityIndex.onLikeChanged(filmId, -1);
+            likeMatrix.onLikeRemoved(filmId, userId);
+        });
+    }
+
+    @Override
+    public int repairLikesCounts() {
         String sql = """
-                SELECT f.*
-                FROM films f
-                INNER JOIN film_likes fl ON f.id = fl.film_id AND fl.user_id = ?
-                INNER JOIN film_likes fl_by_friend ON f.id = fl_by_friend.film_id AND fl_by_friend.user_id = ?
-                INNER JOIN film_likes all_likes ON f.id = all_likes.film_id
-                GROUP BY f.id
-                ORDER BY COUNT(all_likes.user_id) DESC
+                UPDATE films f
+                SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)
+                WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)
                 """;
-        return jdbcTemplate.query(sql, this::mapToRowFilm, userId, friendId);
+        int repaired = jdbcTemplate.update(sql);
+        if (repaired > 0) {
+            popularityIndex.invalidate();
+        }
+        return repaired;
+    }
+
+    @Override
+    public List<Film> getCommonFilmsWithFriend(int userId, int friendId) {
+        List<Integer> filmIds = Arrays.stream(likeMatrix.commonFilms(userId, friendId))
+                .boxed()
+                .sorted(Comparator.comparingInt(popularityIndex::likes).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .toList();
+        return findFilmsByIds(filmIds);
     }
 
     @Override
     public List<Film> getRecommendations(int userId) {
-        String sql = """
-                SELECT DISTINCT f.*
-                FROM films f
-                WHERE
-                NOT EXISTS (
-                SELECT 1 FROM film_likes WHERE film_id = f.id AND user_id = ?
-                )
-                AND EXISTS (
-                SELECT 1
-                FROM film_likes fl
-                WHERE fl.film_id = f.id
-                AND fl.user_id IN (
-                -- Находим пользователей с максимальным числом общих лайков
-                SELECT fl2.user_id
-                FROM film_likes fl1
-                JOIN film_likes fl2 ON fl1.film_id = fl2.film_id AND fl1.user_id <> fl2.user_id
-                WHERE fl1.user_id = ?
-                GROUP BY fl2.user_id
-                HAVING COUNT(fl1.film_id) = (
-                SELECT MAX(cnt)
-                FROM (
-                SELECT COUNT(fl3.film_id) as cnt
-                FROM film_likes fl3
-                JOIN film_likes fl4 ON fl3.film_id = fl4.film_id AND fl3.user_id <> fl4.user_id
-                WHERE fl3.user_id = ?
-                GROUP BY fl4.user_id
-                ) counts
-                )
-                )
-                );
-                """;
-        return jdbcTemplate.query(sql, this::mapToRowFilm, userId, userId, userId);
+        return findFilmsByIds(getRecommendedFilmIds(userId));
+    }
+
+    @Override
+    public List<Integer> getRecommendedFilmIds(int userId) {
+        return Arrays.stream(likeMatrix.recommendations(userId)).boxed().toList();
     }
 
     @Override
@@ -175,74 +346,55 @@ public class FilmDbStorage implements FilmStorage {
             sql = """
                     SELECT f.* FROM films f
                     INNER JOIN film_directors fd ON f.id = fd.film_id AND fd.director_id = ?
-                    LEFT JOIN film_likes fl ON f.id = fl.film_id
-                    GROUP BY f.id
-                    ORDER BY COUNT(fl.user_id) DESC
+                    ORDER BY f.likes_count DESC, f.id
                     """;
         }
         directorDbStorage.getDirectorById(directorId)
                 .orElseThrow(() -> new NotFoundException("Режиссер с id " + directorId + " не найден"));
 
-        return jdbcTemplate.query(sql, this::mapToRowFilm, directorId);
+        return hydrate(jdbcTemplate.query(sql, this::mapToRowFilm, directorId));
     }
 
+    @Override
     public List<Film> findMostPopularFilms(int count, Integer genreId, Integer year) {
-        StringBuilder sql = new StringBuilder(
-                "SELECT f.*, COUNT(fl.user_id) AS likes_count " +
-                        "FROM films f " +
-                        "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                        "LEFT JOIN film_genres fg ON f.id = fg.film_id "
-        );
-
-        List<Object> params = new ArrayList<>();
-        boolean hasGenre = genreId != null;
-        boolean hasYear = year != null;
-
-        if (hasGenre || hasYear) {
-            sql.append("WHERE ");
-            if (hasGenre) {
-                sql.append("fg.genre_id = ? ");
-                params.add(genreId);
-            }
-            if (hasGenre && hasYear) {
-                sql.append("AND ");
-            }
-            if (hasYear) {
-                sql.append("EXTRACT(YEAR FROM f.release_date) = ? ");
-                params.add(year);
-            }
-        }
-
-        sql.append("GROUP BY f.id ");
-        sql.append("ORDER BY likes_count DESC ");
-        sql.append("LIMIT ?");
-
-        params.add(count);
-
-        return jdbcTemplate.query(sql.toString(), this::mapToRowFilm, params.toArray());
+        return findFilmsByIds(popularityIndex.top(count, genreId, year));
     }
 
     @Override
     public void removeFilm(int filmId) {
         jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+        popularityIndex.onFilmRemoved(filmId);
+        filmSearchIndex.onFilmRemoved(filmId);
+        likeMatrix.onFilmRemoved(filmId);
+    }
+
+    // Фильмы по списку id одним запросом, в порядке списка
+    @Override
+    public List<Film> findFilmsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Film> byId = new HashMap<>();
+        jdbcTemplate.query("SELECT * FROM films WHERE id = ANY(?)", rs -> {
+            Film film = mapToRowFilm(rs, 0);
+            byId.put(film.getId(), film);
+        }, (Object) ids.toArray(Integer[]::new));
+        List<Film> films = ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return hydrate(films);
     }
 
-    private void updateGenres(Film film) {
-        if (film.getGenres() == null || film.getGenres().isEmpty()) return;
-        String sql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
-        film.getGenres().stream()
-                .map(Genre::getId)
-                .distinct()
-                .forEach(genreId -> jdbcTemplate.update(sql, film.getId(), genreId));
+    private List<Integer> genreIds(Film film) {
+        if (film.getGenres() == null) {
+            return List.of();
+        }
+        return film.getGenres().stream().map(Genre::getId).distinct().toList();
     }
 
-    private void updateDirectors(Film film) {
-        if (film.getDirectors() == null || film.getDirectors().isEmpty()) return;
-        String sql = "INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)";
-        film.getDirectors().stream()
-                .map(Director::getId)
-                .distinct()
-                .forEach(directorId -> jdbcTemplate.update(sql, film.getId(), directorId));
+    private List<Integer> directorIds(Film film) {
+        if (film.getDirectors() == null) {
+            return List.of();
+        }
+        return film.getDirectors().stream().map(Director::getId).distinct().toList();
     }
 
     private Film mapToRowFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -252,68 +404,59 @@ public class FilmDbStorage implements FilmStorage {
         film.setDescription(rs.getString("description"));
         film.setReleaseDate(rs.getDate("release_date").toLocalDate());
         film.setDuration(rs.getInt("duration"));
-        film.setMpa(getMpa(rs.getInt("mpa_rating_id")));
-        film.setGenres(getGenres(rs.getInt("id")));
-        film.setDirectors(getDirectors(rs.getInt("id")));
+        film.setMpa(new Mpa(rs.getInt("mpa_rating_id"), null));
         return film;
     }
 
-    private Mpa getMpa(int mpaId) {
-        String sql = "SELECT * FROM mpa_ratings WHERE id = ?";
-        return jdbcTemplate.queryForObject(sql, (rs, rowNum)
-                -> new Mpa(rs.getInt("id"), rs.getString("name")), mpaId);
+    // Догружает жанры и режиссёров сразу для всей выборки: по одному запросу на связь,
+    // вместо запросов на каждую строку. MPA и названия жанров берутся из справочников в памяти
+    private List<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Integer[] filmIds = films.stream().map(Film::getId).distinct().toArray(Integer[]::new);
+
+        Map<Integer, List<Genre>> genresByFilm = new HashMap<>();
+        String genresSql = "SELECT film_id, genre_id FROM film_genres WHERE film_id = ANY(?) ORDER BY film_id, genre_id";
+        jdbcTemplate.query(genresSql, rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>())
+                    .add(genre(rs.getInt("genre_id")));
+        }, (Object) filmIds);
+
+        Map<Integer, List<Director>> directorsByFilm = new HashMap<>();
+        String directorsSql = """
+                SELECT fd.film_id, d.id, d.name
+                FROM film_directors fd
+                JOIN directors d ON d.id = fd.director_id
+                WHERE fd.film_id = ANY(?)
+                """;
+        jdbcTemplate.query(directorsSql, rs -> {
+            directorsByFilm.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>())
+                    .add(new Director(rs.getInt("id"), rs.getString("name")));
+        }, (Object) filmIds);
+
+        for (Film film : films) {
+            film.setMpa(mpa(film.getMpa().getId()));
+            film.setGenres(genresByFilm.getOrDefault(film.getId(), new ArrayList<>()));
+            film.setDirectors(directorsByFilm.getOrDefault(film.getId(), new ArrayList<>()));
+        }
+        return films;
     }
 
-    private List<Genre> getGenres(int filmId) {
-        String sql = """
-                SELECT g.id, g.name
-                FROM genres g
-                JOIN film_genres fg ON g.id = fg.genre_id
-                WHERE fg.film_id = ?
-                ORDER BY g.id
-                """;
-        return jdbcTemplate.query(sql, ((rs, rowNum) ->
-                new Genre(rs.getInt("id"), rs.getString("name"))), filmId);
+
+    private Mpa mpa(int mpaId) {
+        return mpaDao.findByIdMpa(mpaId).orElseGet(() -> new Mpa(mpaId, null));
     }
 
-    private List<Director> getDirectors(int film_id) {
-        String sql = """
-                SELECT d.*
-                FROM directors d
-                JOIN film_directors fd ON fd.director_id = d.id
-                WHERE fd.film_id = ?
-                """;
-        return jdbcTemplate.query(sql, ((rs, rowNum) ->
-                new Director(rs.getInt("id"), rs.getString("name"))), film_id);
+    private Genre genre(int genreId) {
+        return genreDao.findGenreById(genreId).orElseGet(() -> new Genre(genreId, null));
     }
 
+    // Порядок (лайки по убыванию, затем id) задаёт рейтинг в памяти, поэтому из БД
+    // догружаются только отобранные count фильмов
     @Override
-    public List<Film> searchFilms(String query, List<String> by) {
-        StringBuilder sql = new StringBuilder("""
-                SELECT f.*, COUNT(fl.USER_ID) likes_count
-                FROM FILMS f
-                LEFT JOIN FILM_LIKES fl ON f.ID = fl.FILM_ID
-                LEFT JOIN FILM_DIRECTORS fd ON f.ID = fd.FILM_ID
-                LEFT JOIN DIRECTORS d ON fd.DIRECTOR_ID = d.ID
-                WHERE
-                """);
-
-        List<Object> params = new ArrayList<>();
-        String lowerQuery = "%" + query.toLowerCase() + "%";
-
-        List<String> conditions = new ArrayList<>();
-        if (by.contains("title")) {
-            conditions.add("LOWER(f.NAME) LIKE LOWER(?)");
-            params.add(lowerQuery);
-        }
-        if (by.contains("director")) {
-            conditions.add("LOWER(d.NAME) LIKE LOWER(?)");
-            params.add(lowerQuery);
-        }
-
-        sql.append(String.join(" OR ", conditions));
-        sql.append(" GROUP BY f.ID ORDER BY likes_count DESC");
-
-        return jdbcTemplate.query(sql.toString(), this::mapToRowFilm, params.toArray());
+    public List<Film> searchFilms(String query, List<String> by, int count) {
+        int[] filmIds = filmSearchIndex.search(query, by.contains("title"), by.contains("director"));
+        return findFilmsByIds(popularityIndex.rank(filmIds, count));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,312 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.index.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Триграммный индекс названий фильмов и имён режиссёров для поиска по подстроке без учёта регистра —
+ * та же семантика, что у LOWER(name) LIKE '%query%'.
+ * <p>
+ * Постинг-листы — отсортированные int[] (SortedIntArrays), которые не меняются на месте: запись подменяет
+ * массив целиком, поэтому чтение идёт без блокировок. Пакет фильмов пересобирает каждый затронутый
+ * постинг-лист один раз.
+ * <p>
+ * Запрос от трёх символов: кандидаты — пересечение списков по его триграммам, начиная с самого короткого,
+ * затем проверка на вхождение подстроки. Запрос из двух символов отвечается биграммным постинг-листом
+ * напрямую. Запрос из одного символа объединяет биграммные списки, содержащие этот символ (различных биграмм
+ * на порядки меньше, чем текстов), и тексты из одного символа.
+ * Индекс возвращает только id — порядок по популярности задаёт PopularityIndex.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex extends InMemoryIndex<FilmSearchIndex.State> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Отсортированные id найденных фильмов
+    public int[] search(String query, boolean byTitle, boolean byDirector) {
+        State state = state();
+        if (byTitle && !byDirector) {
+            return state.titles.find(query);
+        }
+        BitSet filmIds = new BitSet();
+        if (byTitle) {
+            for (int filmId : state.titles.find(query)) {
+                filmIds.set(filmId);
+            }
+        }
+        if (byDirector) {
+            for (int directorId : state.directorNames.find(query)) {
+                for (int filmId : state.filmsByDirector.getOrDefault(directorId, SortedIntArrays.EMPTY)) {
+                    filmIds.set(filmId);
+                }
+            }
+        }
+        return filmIds.stream().toArray();
+    }
+
+    public void onFilmSaved(int filmId, String title, Collection<Integer> directorIds) {
+        onFilmsSaved(List.of(new SavedFilm(filmId, title, directorIds)));
+    }
+
+    public void onFilmsSaved(List<SavedFilm> films) {
+        update(state -> {
+            Map<Integer, String> titles = new HashMap<>();
+            for (SavedFilm film : films) {
+                titles.put(film.id(), film.title());
+                int[] newDirectors = SortedIntArrays.of(film.directorIds());
+                int[] oldDirectors = newDirectors.length == 0
+                        ? state.directorsByFilm.remove(film.id())
+                        : state.directorsByFilm.put(film.id(), newDirectors);
+                for (int directorId : newDirectors) {
+                    state.filmsByDirector.compute(directorId, (k, ids) -> SortedIntArrays.insert(ids, film.id()));
+                }
+                if (oldDirectors != null) {
+                    for (int directorId : oldDirectors) {
+                        if (!SortedIntArrays.contains(newDirectors, directorId)) {
+                            state.filmsByDirector.computeIfPresent(directorId,
+                                    (k, ids) -> SortedIntArrays.remove(ids, film.id()));
+                        }
+                    }
+                }
+            }
+            state.titles.putAll(titles);
+        });
+    }
+
+    public void onFilmRemoved(int filmId) {
+        update(state -> {
+            state.titles.remove(filmId);
+            int[] directors = state.directorsByFilm.remove(filmId);
+            if (directors != null) {
+                for (int directorId : directors) {
+                    state.filmsByDirector.computeIfPresent(directorId, (k, ids) -> SortedIntArrays.remove(ids, filmId));
+                }
+            }
+        });
+    }
+
+    public void onDirectorSaved(int directorId, String name) {
+        update(state -> state.directorNames.putAll(Map.of(directorId, name)));
+    }
+
+    public void onDirectorRemoved(int directorId) {
+        update(state -> {
+            state.directorNames.remove(directorId);
+            int[] films = state.filmsByDirector.remove(directorId);
+            if (films != null) {
+                for (int filmId : films) {
+                    state.directorsByFilm.computeIfPresent(filmId, (k, ids) -> SortedIntArrays.remove(ids, directorId));
+                }
+            }
+        });
+    }
+
+    @Override
+    protected State load() {
+        State state = new State();
+        Map<Integer, String> titles = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM films", rs -> {
+            titles.put(rs.getInt("id"), rs.getString("name"));
+        });
+        state.titles.putAll(titles);
+        Map<Integer, String> directorNames = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM directors", rs -> {
+            directorNames.put(rs.getInt("id"), rs.getString("name"));
+        });
+        state.directorNames.putAll(directorNames);
+        Map<Integer, List<Integer>> filmsByDirector = new HashMap<>();
+        Map<Integer, List<Integer>> directorsByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            int filmId = rs.getInt("film_id");
+            int directorId = rs.getInt("director_id");
+            filmsByDirector.computeIfAbsent(directorId, k -> new ArrayList<>()).add(filmId);
+            directorsByFilm.computeIfAbsent(filmId, k -> new ArrayList<>()).add(directorId);
+        });
+        filmsByDirector.forEach((directorId, ids) -> state.filmsByDirector.put(directorId, SortedIntArrays.of(ids)));
+        directorsByFilm.forEach((filmId, ids) -> state.directorsByFilm.put(filmId, SortedIntArrays.of(ids)));
+        log.info("Поисковый индекс загружен: {} фильмов, {} режиссёров",
+                state.titles.size(), state.directorNames.size());
+        return state;
+    }
+
+    public record SavedFilm(int id, String title, Collection<Integer> directorIds) {
+    }
+
+    protected static class State {
+        private final TrigramIndex titles = new TrigramIndex();
+        private final TrigramIndex directorNames = new TrigramIndex();
+        private final Map<Integer, int[]> filmsByDirector = new ConcurrentHashMap<>();
+        private final Map<Integer, int[]> directorsByFilm = new ConcurrentHashMap<>();
+    }
+
+    private static class TrigramIndex {
+        private final Map<Integer, String> texts = new ConcurrentHashMap<>();
+        private final Map<Long, int[]> trigrams = new ConcurrentHashMap<>();
+        private final Map<Integer, int[]> bigrams = new ConcurrentHashMap<>();
+        // Тексты из одного символа: у них нет биграмм
+        private final Set<Integer> singleCharTexts = ConcurrentHashMap.newKeySet();
+
+        int size() {
+            return texts.size();
+        }
+
+        // id группируются по n-граммам, и каждый постинг-лист пересобирается один раз на пакет
+        void putAll(Map<Integer, String> items) {
+            Map<Long, IntList> addedTrigrams = new HashMap<>();
+            Map<Integer, IntList> addedBigrams = new HashMap<>();
+            items.forEach((id, text) -> {
+                String normalized = normalize(text);
+                Set<Long> newTrigrams = trigrams(normalized);
+                Set<Integer> newBigrams = bigrams(normalized);
+                String old = texts.put(id, normalized);
+                if (old != null) {
+                    for (Long gram : trigrams(old)) {
+                        if (!newTrigrams.contains(gram)) {
+                            trigrams.computeIfPresent(gram, (k, ids) -> SortedIntArrays.remove(ids, id));
+                        }
+                    }
+                    for (Integer gram : bigrams(old)) {
+                        if (!newBigrams.contains(gram)) {
+                            bigrams.computeIfPresent(gram, (k, ids) -> SortedIntArrays.remove(ids, id));
+                        }
+                    }
+                }
+                newTrigrams.forEach(gram -> addedTrigrams.computeIfAbsent(gram, k -> new IntList()).add(id));
+                newBigrams.forEach(gram -> addedBigrams.computeIfAbsent(gram, k -> new IntList()).add(id));
+                if (normalized.length() == 1) {
+                    singleCharTexts.add(id);
+                } else {
+                    singleCharTexts.remove(id);
+                }
+            });
+            addedTrigrams.forEach((gram, ids) ->
+                    trigrams.compute(gram, (k, old) -> SortedIntArrays.union(old, ids.toSortedArray())));
+            addedBigrams.forEach((gram, ids) ->
+                    bigrams.compute(gram, (k, old) -> SortedIntArrays.union(old, ids.toSortedArray())));
+        }
+
+        void remove(int id) {
+            singleCharTexts.remove(id);
+            String old = texts.remove(id);
+            if (old != null) {
+                trigrams(old).forEach(gram -> trigrams.computeIfPresent(gram, (k, ids) -> SortedIntArrays.remove(ids, id)));
+                bigrams(old).forEach(gram -> bigrams.computeIfPresent(gram, (k, ids) -> SortedIntArrays.remove(ids, id)));
+            }
+        }
+
+        // Отсортированные id текстов, содержащих запрос; возвращаемый массив нельзя менять
+        int[] find(String query) {
+            String normalized = normalize(query);
+            switch (normalized.length()) {
+                case 0:
+                    return SortedIntArrays.of(texts.keySet());
+                case 1:
+                    return findChar(normalized.charAt(0));
+                case 2:
+                    return bigrams.getOrDefault(bigram(normalized, 0), SortedIntArrays.EMPTY);
+                default:
+                    break;
+            }
+            List<int[]> lists = trigrams(normalized).stream()
+                    .map(gram -> trigrams.getOrDefault(gram, SortedIntArrays.EMPTY))
+                    .sorted(Comparator.comparingInt(ids -> ids.length))
+                    .toList();
+            if (lists.size() == 1) {
+                // Запрос из одной триграммы: постинг-лист и есть точный ответ
+                return lists.getFirst();
+            }
+            // Кандидатов из самого короткого списка проверяем двоичным поиском в остальных
+            return Arrays.stream(lists.getFirst())
+                    .filter(id -> {
+                        for (int i = 1; i < lists.size(); i++) {
+                            if (!SortedIntArrays.contains(lists.get(i), id)) {
+                                return false;
+                            }
+                        }
+                        String text = texts.get(id);
+                        return text != null && text.contains(normalized);
+                    })
+                    .toArray();
+        }
+
+        private int[] findChar(char c) {
+            BitSet result = new BitSet();
+            bigrams.forEach((gram, ids) -> {
+                if ((char) (gram >>> 16) == c || (char) (int) gram == c) {
+                    for (int id : ids) {
+                        result.set(id);
+                    }
+                }
+            });
+            for (Integer id : singleCharTexts) {
+                String text = texts.get(id);
+                if (text != null && text.charAt(0) == c) {
+                    result.set(id);
+                }
+            }
+            return result.stream().toArray();
+        }
+
+        private static String normalize(String text) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+
+        // Два UTF-16 символа упаковываются в один int
+        private static int bigram(String text, int i) {
+            return (text.charAt(i) << 16) | text.charAt(i + 1);
+        }
+
+        private static Set<Integer> bigrams(String text) {
+            Set<Integer> grams = new HashSet<>();
+            for (int i = 0; i + 2 <= text.length(); i++) {
+                grams.add(bigram(text, i));
+            }
+            return grams;
+        }
+
+        // Три UTF-16 символа упаковываются в один long
+        private static Set<Long> trigrams(String text) {
+            Set<Long> grams = new HashSet<>();
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+            }
+            return grams;
+        }
+    }
+
+    // Растущий массив int: id группируются по n-граммам без упаковки в Integer
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            return SortedIntArrays.of(values, size);
+        }
+    }
+}
@@ -5,19 +5,34 @@ import ru.yandex.practicum.filmorate.model.Film;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film addFilm(Film film);
 
     Film updateFilm(Film film);
 
+    // Пакетная вставка фильмов со связями; id проставляются в переданные объекты. Возвращает число вставленных строк
+    int addFilms(List<Film> films);
+
     Collection<Film> getFilms();
 
+    List<Film> getFilms(int afterId, int limit);
+
+    void streamFilms(Consumer<Film> consumer);
+
     Optional<Film> findFilmById(Integer id);
 
-    void addLike(int filmId, int userId);
+    // true, если лайк действительно добавлен (его ещё не было)
+    boolean addLike(int filmId, int userId);
+
+    // true, если лайк действительно удалён
+    boolean removeLike(int filmId, int userId);
 
-    void removeLike(int filmId, int userId);
+    void removeLikesOfUser(int userId);
+
+    // Пересчитывает films.likes_count по film_likes, возвращает число исправленных фильмов
+    int repairLikesCounts();
 
     List<Film> findMostPopularFilms(int count, Integer genreId, Integer year);
 
@@ -25,9 +40,14 @@ public interface FilmStorage {
 
     List<Film> getRecommendations(int userId);
 
+    List<Integer> getRecommendedFilmIds(int userId);
+
+    List<Film> findFilmsByIds(List<Integer> ids);
+
     List<Film> getFilmsByDirector(int directorId, String sortBy);
 
     void removeFilm(int filmId);
 
-    List<Film> searchFilms(String query, List<String> by);
+    // Не больше count фильмов в порядке популярности
+    List<Film> searchFilms(String query, List<String> by, int count);
 }
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.index.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.EMPTY;
+
+/**
+ * Матрица лайков в памяти: для каждого пользователя — отсортированный массив id понравившихся фильмов,
+ * для каждого фильма — отсортированный массив id лайкнувших его пользователей.
+ * Массивы не изменяются на месте, при изменении заменяются копией, поэтому читаются без блокировок.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeMatrix extends InMemoryIndex<LikeMatrix.State> {
+    private final JdbcTemplate jdbcTemplate;
+
+    public int[] likedFilms(int userId) {
+        return state().filmsByUser.getOrDefault(userId, EMPTY);
+    }
+
+    // Общие лайки двух пользователей слиянием отсортированных массивов: O(n + m)
+    public int[] commonFilms(int userId, int otherId) {
+        State state = state();
+        return SortedIntArrays.intersect(state.filmsByUser.getOrDefault(userId, EMPTY),
+                state.filmsByUser.getOrDefault(otherId, EMPTY));
+    }
+
+    /**
+     * Рекомендации с той же семантикой, что и прежний SQL-запрос: берутся все пользователи
+     * с максимальным числом общих с userId лайков, и из их лайков выбираются фильмы,
+     * которых userId ещё не лайкал. Результат — id фильмов по возрастанию.
+     */
+    public int[] recommendations(int userId) {
+        State state = state();
+        int[] ownFilms = state.filmsByUser.getOrDefault(userId, EMPTY);
+
+        // Все вхождения пользователей в списки лайков общих фильмов; после сортировки
+        // длина серии одинаковых id равна числу общих лайков с этим пользователем
+        int total = 0;
+        for (int filmId : ownFilms) {
+            total += state.usersByFilm.getOrDefault(filmId, EMPTY).length;
+        }
+        int[] coLikers = new int[total];
+        int size = 0;
+        for (int filmId : ownFilms) {
+            int[] users = state.usersByFilm.getOrDefault(filmId, EMPTY);
+            System.arraycopy(users, 0, coLikers, size, users.length);
+            size += users.length;
+        }
+        Arrays.sort(coLikers, 0, size);
+
+        int bestOverlap = 0;
+        int[] similarUsers = new int[0];
+        int similarCount = 0;
+        for (int i = 0; i < size; ) {
+            int j = i;
+            while (j < size && coLikers[j] == coLikers[i]) {
+                j++;
+            }
+            int overlap = j - i;
+            if (coLikers[i] != userId) {
+                if (overlap > bestOverlap) {
+                    bestOverlap = overlap;
+                    similarCount = 0;
+                }
+                if (overlap == bestOverlap) {
+                    if (similarCount == similarUsers.length) {
+                        similarUsers = Arrays.copyOf(similarUsers, Math.max(4, similarCount * 2));
+                    }
+                    similarUsers[similarCount++] = coLikers[i];
+                }
+            }
+            i = j;
+        }
+
+        int[] candidates = new int[0];
+        int candidateCount = 0;
+        for (int k = 0; k < similarCount; k++) {
+            for (int filmId : state.filmsByUser.getOrDefault(similarUsers[k], EMPTY)) {
+                if (!SortedIntArrays.contains(ownFilms, filmId)) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, Math.max(16, candidateCount * 2));
+                    }
+                    candidates[candidateCount++] = filmId;
+                }
+            }
+        }
+        return Arrays.stream(candidates, 0, candidateCount).sorted().distinct().toArray();
+    }
+
+    public void onLikeAdded(int filmId, int userId) {
+        update(state -> {
+            state.filmsByUser.compute(userId, (k, films) -> SortedIntArrays.insert(films, filmId));
+            state.usersByFilm.compute(filmId, (k, users) -> SortedIntArrays.insert(users, userId));
+        });
+    }
+
+    public void onLikeRemoved(int filmId, int userId) {
+        update(state -> {
+            state.filmsByUser.computeIfPresent(userId, (k, films) -> SortedIntArrays.remove(films, filmId));
+            state.usersByFilm.computeIfPresent(filmId, (k, users) -> SortedIntArrays.remove(users, userId));
+        });
+    }
+
+    public void onFilmRemoved(int filmId) {
+        update(state -> {
+            int[] users = state.usersByFilm.remove(filmId);
+            if (users != null) {
+                for (int userId : users) {
+                    state.filmsByUser.computeIfPresent(userId, (k, films) -> SortedIntArrays.remove(films, filmId));
+                }
+            }
+        });
+    }
+
+    @Override
+    protected State load() {
+        Map<Integer, List<Integer>> filmsByUser = new HashMap<>();
+        Map<Integer, List<Integer>> usersByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            int filmId = rs.getInt("film_id");
+            int userId = rs.getInt("user_id");
+            filmsByUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(filmId);
+            usersByFilm.computeIfAbsent(filmId, k -> new ArrayList<>()).add(userId);
+        });
+        State state = new State();
+        filmsByUser.forEach((userId, films) -> state.filmsByUser.put(userId, SortedIntArrays.of(films)));
+        usersByFilm.forEach((filmId, users) -> state.usersByFilm.put(filmId, SortedIntArrays.of(users)));
+        log.info("Матрица лайков загружена: {} пользователей, {} фильмов",
+                state.filmsByUser.size(), state.usersByFilm.size());
+        return state;
+    }
+
+    protected static class State {
+        private final Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+        private final Map<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+    }
+}
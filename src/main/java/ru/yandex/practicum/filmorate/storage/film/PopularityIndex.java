@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.index.InMemoryIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Рейтинг фильмов по числу лайков: общий, по жанру, по году и по жанру с годом.
+ * <p>
+ * Каждый срез — упорядоченное множество ключей, где ключ кодирует пару (лайки по убыванию, id по возрастанию),
+ * поэтому лайк или его снятие обходятся в O(log n) на срез, а топ-N — в O(N).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityIndex extends InMemoryIndex<PopularityIndex.State> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // id фильмов в порядке популярности; genreId и year необязательны
+    public List<Integer> top(int count, Integer genreId, Integer year) {
+        State state = state();
+        NavigableSet<Long> ranking;
+        if (genreId != null && year != null) {
+            ranking = state.byGenreYear.get(new GenreYear(genreId, year));
+        } else if (genreId != null) {
+            ranking = state.byGenre.get(genreId);
+        } else if (year != null) {
+            ranking = state.byYear.get(year);
+        } else {
+            ranking = state.global;
+        }
+        List<Integer> result = new ArrayList<>();
+        if (ranking == null) {
+            return result;
+        }
+        Iterator<Long> keys = ranking.iterator();
+        while (result.size() < count && keys.hasNext()) {
+            long key = keys.next();
+            int filmId = (int) key;
+            Entry entry = state.films.get(filmId);
+            // при конкурентном изменении в срезе ненадолго остаётся старый ключ фильма — пропускаем его
+            if (entry != null && entry.key(filmId) == key) {
+                result.add(filmId);
+            }
+        }
+        return result;
+    }
+
+    // Первые count из переданных фильмов в порядке популярности — тот же порядок, что ORDER BY likes_count DESC, id.
+    // Отбор через ограниченную кучу: O(n log count) без сортировки всего списка
+    public List<Integer> rank(int[] filmIds, int count) {
+        State state = state();
+        PriorityQueue<Long> worstFirst = new PriorityQueue<>(Math.min(count, filmIds.length) + 1,
+                Comparator.reverseOrder());
+        for (int filmId : filmIds) {
+            Entry entry = state.films.get(filmId);
+            long key = entry == null ? new Entry(0, new int[0], 0).key(filmId) : entry.key(filmId);
+            if (worstFirst.size() < count) {
+                worstFirst.add(key);
+            } else if (count > 0 && key < worstFirst.peek()) {
+                worstFirst.poll();
+                worstFirst.add(key);
+            }
+        }
+        long[] keys = worstFirst.stream().mapToLong(Long::longValue).sorted().toArray();
+        List<Integer> result = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            result.add((int) key);
+        }
+        return result;
+    }
+
+    public int likes(int filmId) {
+        Entry entry = state().films.get(filmId);
+        return entry == null ? 0 : entry.likes;
+    }
+
+    public void onFilmSaved(int filmId, LocalDate releaseDate, Collection<Integer> genreIds) {
+        update(state -> {
+            Entry old = state.films.get(filmId);
+            int likes = old == null ? 0 : old.likes;
+            Entry updated = new Entry(releaseDate.getYear(), genreIds.stream().mapToInt(Integer::intValue).toArray(),
+                    likes);
+            state.replace(filmId, old, updated);
+        });
+    }
+
+    public void onFilmRemoved(int filmId) {
+        update(state -> state.replace(filmId, state.films.get(filmId), null));
+    }
+
+    public void onLikeChanged(int filmId, int delta) {
+        update(state -> {
+            Entry old = state.films.get(filmId);
+            if (old != null) {
+                state.replace(filmId, old, new Entry(old.year, old.genreIds, old.likes + delta));
+            }
+        });
+    }
+
+    // Сверяет счётчики лайков в индексе с films.likes_count; при расхождении индекс перестраивается.
+    // Возвращает число расходящихся фильмов
+    public int checkConsistency() {
+        State state = state();
+        Map<Integer, Integer> dbLikes = new HashMap<>();
+        jdbcTemplate.query("SELECT id, likes_count FROM films", rs -> {
+            dbLikes.put(rs.getInt("id"), rs.getInt("likes_count"));
+        });
+        int mismatches = 0;
+        for (Map.Entry<Integer, Integer> film : dbLikes.entrySet()) {
+            Entry entry = state.films.get(film.getKey());
+            if (entry == null || entry.likes != film.getValue()) {
+                mismatches++;
+            }
+        }
+        mismatches += (int) state.films.keySet().stream().filter(id -> !dbLikes.containsKey(id)).count();
+        if (mismatches > 0) {
+            log.warn("Рейтинг популярности расходится с БД у {} фильмов, индекс будет перестроен", mismatches);
+            invalidate();
+        }
+        return mismatches;
+    }
+
+    @Override
+    protected State load() {
+        Map<Integer, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        State state = new State();
+        String sql = "SELECT id, EXTRACT(YEAR FROM release_date) AS release_year, likes_count FROM films";
+        jdbcTemplate.query(sql, rs -> {
+            int filmId = rs.getInt("id");
+            int[] genreIds = genresByFilm.getOrDefault(filmId, List.of()).stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            state.replace(filmId, null, new Entry(rs.getInt("release_year"), genreIds, rs.getInt("likes_count")));
+        });
+        log.info("Рейтинг популярности загружен: {} фильмов", state.films.size());
+        return state;
+    }
+
+    protected static class State {
+        private final Map<Integer, Entry> films = new ConcurrentHashMap<>();
+        private final NavigableSet<Long> global = new ConcurrentSkipListSet<>();
+        private final Map<Integer, NavigableSet<Long>> byGenre = new ConcurrentHashMap<>();
+        private final Map<Integer, NavigableSet<Long>> byYear = new ConcurrentHashMap<>();
+        private final Map<GenreYear, NavigableSet<Long>> byGenreYear = new ConcurrentHashMap<>();
+
+        // Сначала добавляет новые ключи, потом убирает старые, чтобы читатель не потерял фильм из топа
+        private void replace(int filmId, Entry old, Entry updated) {
+            if (updated != null) {
+                films.put(filmId, updated);
+                forEachRanking(updated, ranking -> ranking.add(updated.key(filmId)));
+            } else {
+                films.remove(filmId);
+            }
+            if (old == null) {
+                return;
+            }
+            long oldKey = old.key(filmId);
+            // если ключ не изменился, из срезов нового состояния его убирать нельзя
+            Set<NavigableSet<Long>> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (updated != null && updated.key(filmId) == oldKey) {
+                forEachRanking(updated, keep::add);
+            }
+            forEachRanking(old, ranking -> {
+                if (!keep.contains(ranking)) {
+                    ranking.remove(oldKey);
+                }
+            });
+        }
+
+        private void forEachRanking(Entry entry, Consumer<NavigableSet<Long>> action) {
+            action.accept(global);
+            action.accept(byYear.computeIfAbsent(entry.year, k -> new ConcurrentSkipListSet<>()));
+            for (int genreId : entry.genreIds) {
+                action.accept(byGenre.computeIfAbsent(genreId, k -> new ConcurrentSkipListSet<>()));
+                action.accept(byGenreYear.computeIfAbsent(new GenreYear(genreId, entry.year),
+                        k -> new ConcurrentSkipListSet<>()));
+            }
+        }
+    }
+
+    private record Entry(int year, int[] genreIds, int likes) {
+        long key(int filmId) {
+            return ((long) (Integer.MAX_VALUE - likes) << 32) | filmId;
+        }
+    }
+
+    private record GenreYear(int genreId, int year) {
+    }
+}
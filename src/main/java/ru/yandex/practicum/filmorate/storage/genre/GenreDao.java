@@ -1,12 +1,18 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.monitoring.NotTimed;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface GenreDao {
+    @NotTimed
     List<Genre> getGenres();
 
+    @NotTimed
     Optional<Genre> findGenreById(int id);
+
+    // Перечитывает справочник из БД после ручных изменений таблицы genres
+    void reload();
 }
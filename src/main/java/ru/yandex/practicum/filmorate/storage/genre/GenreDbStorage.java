@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -9,27 +10,42 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Справочник жанров. Как и {@link ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage},
+ * загружается при старте, а экземпляры {@link Genre} переиспользуются всеми фильмами.
+ */
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class GenreDbStorage implements GenreDao {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile List<Genre> all = List.of();
+    private volatile Map<Integer, Genre> byId = Map.of();
+
     @Override
     public List<Genre> getGenres() {
-        return jdbcTemplate.query("SELECT * FROM genres ORDER BY id", this::mapToRowGenre);
+        return all;
     }
 
     @Override
     public Optional<Genre> findGenreById(int id) {
-        try {
-            return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT * FROM genres WHERE id = ?",
-                    this::mapToRowGenre, id));
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    @Override
+    @PostConstruct
+    public void reload() {
+        List<Genre> loaded = List.copyOf(jdbcTemplate.query("SELECT * FROM genres ORDER BY id", this::mapToRowGenre));
+        byId = loaded.stream().collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity()));
+        all = loaded;
+        log.debug("Загружено жанров: {}", loaded.size());
     }
 
     private Genre mapToRowGenre(ResultSet rs, int rowNum) throws SQLException {
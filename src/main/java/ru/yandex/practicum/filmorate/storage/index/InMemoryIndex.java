@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Основа для индексов в памяти, построенных по данным БД.
+ * <p>
+ * Состояние загружается лениво при первом чтении. Изменения применяются сразу после записи в БД,
+ * а если транзакция этой записи откатывается, индекс сбрасывается и при следующем чтении
+ * перестраивается из БД.
+ * <p>
+ * Изменение, пришедшее, пока индекс не загружен, не применяется, но и не теряется: после фиксации
+ * его транзакции (или сразу, если транзакции нет) индекс сбрасывается, а загрузка, которая шла
+ * в это время и могла не увидеть запись, замечает сброс по номеру поколения и читает БД заново.
+ * <p>
+ * Состояние читается без блокировок, поэтому его структуры должны быть потокобезопасными.
+ * Изменения выполняются под короткой блокировкой; загрузка — под отдельной, чтобы запись в индекс
+ * не ждала чтения всей таблицы. Блокировки — ReentrantLock: загрузка обращается к БД,
+ * а synchronized закрепил бы виртуальный поток за потоком ОС на всё это время.
+ */
+public abstract class InMemoryIndex<S> {
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object rollbackKey = new Object();
+    private final Object completionKey = new Object();
+    private volatile S state;
+
+    protected abstract S load();
+
+    protected S state() {
+        S current = state;
+        if (current != null) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                current = state;
+                if (current != null) {
+                    return current;
+                }
+                long seen = generation.get();
+                S loaded = load();
+                lock.lock();
+                try {
+                    if (generation.get() == seen) {
+                        state = loaded;
+                        invalidateOnRollback();
+                        return loaded;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Данные менялись всё время загрузки: отдаём прочитанное, не сохраняя его в индекс
+                if (attempt == MAX_LOAD_ATTEMPTS) {
+                    return loaded;
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    protected void update(Consumer<S> change) {
+        lock.lock();
+        try {
+            if (state == null) {
+                invalidateAfterCompletion();
+                return;
+            }
+            invalidateOnRollback();
+            change.accept(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            state = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateOnRollback() {
+        registerOnce(rollbackKey, status -> status != TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private void invalidateAfterCompletion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        registerOnce(completionKey, status -> true);
+    }
+
+    // Одна регистрация на транзакцию, сколько бы изменений индекса она ни внесла
+    private void registerOnce(Object key, IntPredicate invalidateOn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(key)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                if (invalidateOn.test(status)) {
+                    invalidate();
+                }
+            }
+        });
+    }
+}
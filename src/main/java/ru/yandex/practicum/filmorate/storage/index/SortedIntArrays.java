@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Операции над отсортированными массивами int без повторов. Массивы не изменяются на месте:
+ * при изменении возвращается новая копия, поэтому их можно безопасно читать из других потоков.
+ */
+public final class SortedIntArrays {
+    public static final int[] EMPTY = new int[0];
+
+    private SortedIntArrays() {
+    }
+
+    public static int[] of(Collection<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    // Сортирует первые size элементов и убирает повторы; исходный массив не меняется
+    public static int[] of(int[] values, int size) {
+        return Arrays.stream(values, 0, size).sorted().distinct().toArray();
+    }
+
+    public static boolean contains(int[] sorted, int value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    public static int[] insert(int[] sorted, int value) {
+        if (sorted == null) {
+            return new int[]{value};
+        }
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos >= 0) {
+            return sorted;
+        }
+        int insertAt = -pos - 1;
+        int[] result = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, insertAt);
+        result[insertAt] = value;
+        System.arraycopy(sorted, insertAt, result, insertAt + 1, sorted.length - insertAt);
+        return result;
+    }
+
+    // Пустой результат возвращается как null, чтобы Map.compute удалял ключ, а не копил пустые массивы
+    public static int[] remove(int[] sorted, int value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return null;
+        }
+        int[] result = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, pos);
+        System.arraycopy(sorted, pos + 1, result, pos, sorted.length - pos - 1);
+        return result;
+    }
+
+    // Объединение слиянием: O(n + m); null считается пустым массивом
+    public static int[] union(int[] first, int[] second) {
+        if (first == null || first.length == 0) {
+            return second;
+        }
+        if (second.length == 0) {
+            return first;
+        }
+        int[] merged = new int[first.length + second.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                merged[size++] = first[i++];
+            } else if (first[i] > second[j]) {
+                merged[size++] = second[j++];
+            } else {
+                merged[size++] = first[i++];
+                j++;
+            }
+        }
+        while (i < first.length) {
+            merged[size++] = first[i++];
+        }
+        while (j < second.length) {
+            merged[size++] = second[j++];
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    // Пересечение слиянием: O(n + m)
+    public static int[] intersect(int[] first, int[] second) {
+        int[] common = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+}
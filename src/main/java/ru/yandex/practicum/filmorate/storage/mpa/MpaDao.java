@@ -1,12 +1,18 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.monitoring.NotTimed;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface MpaDao {
+    @NotTimed
     List<Mpa> findAllMpa();
 
+    @NotTimed
     Optional<Mpa> findByIdMpa(int id);
+
+    // Перечитывает справочник из БД после ручных изменений таблицы mpa_ratings
+    void reload();
 }
@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -9,27 +10,42 @@ import ru.yandex.practicum.filmorate.model.Mpa;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Справочник рейтингов MPA. Таблица почти не меняется, поэтому читается при старте и дальше
+ * отдаётся из памяти; ручные правки таблицы подхватывает DictionaryReloadJob.
+ */
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class MpaDbStorage implements MpaDao {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile List<Mpa> all = List.of();
+    private volatile Map<Integer, Mpa> byId = Map.of();
+
     @Override
     public List<Mpa> findAllMpa() {
-        return jdbcTemplate.query("SELECT * FROM mpa_ratings", this::mapRowToMpa);
+        return all;
     }
 
     @Override
     public Optional<Mpa> findByIdMpa(int id) {
-        try {
-            return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT * FROM mpa_ratings WHERE id = ?",
-                    this::mapRowToMpa, id));
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    @Override
+    @PostConstruct
+    public void reload() {
+        List<Mpa> loaded = List.copyOf(jdbcTemplate.query("SELECT * FROM mpa_ratings ORDER BY id", this::mapRowToMpa));
+        byId = loaded.stream().collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity()));
+        all = loaded;
+        log.debug("Загружено рейтингов MPA: {}", loaded.size());
     }
 
     private Mpa mapRowToMpa(ResultSet rs, int rowNum) throws SQLException {
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class RecommendationDbStorage implements RecommendationStorage {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<RecommendationSnapshot> find(int userId) {
+        String statusSql = "SELECT computed_at, dirty FROM user_recommendation_status WHERE user_id = ?";
+        try {
+            RecommendationSnapshot snapshot = jdbcTemplate.queryForObject(statusSql, (rs, rowNum) ->
+                    new RecommendationSnapshot(userId, new ArrayList<>(), rs.getLong("computed_at"),
+                            rs.getBoolean("dirty")), userId);
+            String filmsSql = "SELECT film_id FROM user_recommendations WHERE user_id = ? ORDER BY position";
+            snapshot.setFilmIds(jdbcTemplate.queryForList(filmsSql, Integer.class, userId));
+            return Optional.of(snapshot);
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    // computedAt — момент начала расчёта: если пользователя пометили устаревшим позже,
+    // пометка сохраняется и он будет пересчитан ещё раз.
+    // Строка статуса создаётся (или блокируется) первой: параллельные расчёты одного пользователя,
+    // в том числе два первых запроса «холодного» пользователя, выстраиваются за ней
+    @Override
+    @Transactional
+    public void save(int userId, List<Integer> filmIds, long computedAt) {
+        String statusSql = "MERGE INTO user_recommendation_status (user_id, computed_at) KEY (user_id) VALUES (?, ?)";
+        try {
+            jdbcTemplate.update(statusSql, userId, computedAt);
+        } catch (DuplicateKeyException e) {
+            // Параллельный расчёт успел вставить строку: теперь MERGE её обновит
+            jdbcTemplate.update(statusSql, userId, computedAt);
+        }
+        jdbcTemplate.update("""
+                UPDATE user_recommendation_status
+                SET dirty = (dirty_at IS NOT NULL AND dirty_at >= ?),
+                    dirty_at = CASE WHEN dirty_at >= ? THEN dirty_at END
+                WHERE user_id = ?
+                """, computedAt, computedAt, userId);
+
+        jdbcTemplate.update("DELETE FROM user_recommendations WHERE user_id = ?", userId);
+        List<Object[]> rows = new ArrayList<>(filmIds.size());
+        for (int i = 0; i < filmIds.size(); i++) {
+            rows.add(new Object[]{userId, i, filmIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_recommendations (user_id, position, film_id) VALUES (?, ?, ?)",
+                rows);
+    }
+
+    @Override
+    public void markDirty(int userId) {
+        jdbcTemplate.update("UPDATE user_recommendation_status SET dirty = TRUE, dirty_at = ? WHERE user_id = ?",
+                System.currentTimeMillis(), userId);
+    }
+
+    @Override
+    public List<Integer> findDirtyUsers(int limit) {
+        String sql = """
+                SELECT user_id FROM user_recommendation_status
+                WHERE dirty = TRUE
+                ORDER BY dirty_at
+                LIMIT ?
+                """;
+        return jdbcTemplate.queryForList(sql, Integer.class, limit);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RecommendationSnapshot {
+    private int userId;
+    private List<Integer> filmIds;
+    private long computedAt;
+    private boolean dirty;
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RecommendationStorage {
+    Optional<RecommendationSnapshot> find(int userId);
+
+    void save(int userId, List<Integer> filmIds, long computedAt);
+
+    // Помечает устаревшими рекомендации пользователя; без рассчитанных рекомендаций ничего не делает
+    void markDirty(int userId);
+
+    // Пользователи с рекомендациями, помеченными устаревшими, в порядке пометки
+    List<Integer> findDirtyUsers(int limit);
+}
@@ -1,15 +1,18 @@
 package ru.yandex.practicum.filmorate.storage.review;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Review;
 
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -72,42 +75,90 @@ public class ReviewDbStorage implements ReviewStorage {
 
     @Override
     public List<Review> findByFilmId(Integer filmId, int count) {
-        String sql = (filmId == null)
-                ? "SELECT * FROM reviews ORDER BY useful DESC LIMIT ?"
-                : "SELECT * FROM reviews WHERE film_id = ? ORDER BY useful DESC LIMIT ?";
+        return findByFilmId(filmId, null, null, count);
+    }
 
-        return filmId == null
-                ? jdbcTemplate.query(sql, this::mapRowToReview, count)
-                : jdbcTemplate.query(sql, this::mapRowToReview, filmId, count);
+    // Порядок совпадает с индексами idx_reviews_film_useful и idx_reviews_useful, поэтому H2 читает строки
+    // по индексу и останавливается на LIMIT. Условие useful <= ? задаёт начало диапазона в индексе,
+    // остальная часть курсора отсекает уже показанные отзывы с тем же useful
+    @Override
+    public List<Review> findByFilmId(Integer filmId, Integer afterUseful, Integer afterReviewId, int count) {
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (filmId != null) {
+            conditions.add("film_id = ?");
+            params.add(filmId);
+        }
+        if (afterUseful != null && afterReviewId != null) {
+            conditions.add("useful <= ? AND (useful < ? OR review_id > ?)");
+            params.add(afterUseful);
+            params.add(afterUseful);
+            params.add(afterReviewId);
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+        String orderBy = filmId == null
+                ? "ORDER BY useful DESC, review_id"
+                : "ORDER BY film_id, useful DESC, review_id";
+        params.add(count);
+        String sql = "SELECT * FROM reviews " + where + " " + orderBy + " LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapRowToReview, params.toArray());
     }
 
     @Override
+    @Transactional
     public void addLike(int reviewId, int userId) {
         addReaction(reviewId, userId, true);
     }
 
     @Override
+    @Transactional
     public void addDislike(int reviewId, int userId) {
         addReaction(reviewId, userId, false);
     }
 
+    // Удаление возвращает прежнюю реакцию, и useful сдвигается на её вес без пересчёта по всем реакциям
     @Override
+    @Transactional
     public void removeReaction(int reviewId, int userId) {
-        removeReactionWithoutRecalculation(reviewId, userId);
-        recalculateUseful(reviewId);
+        String sql = """
+                SELECT is_like FROM OLD TABLE (
+                    DELETE FROM review_reactions WHERE review_id = ? AND user_id = ?
+                )
+                """;
+        List<Boolean> previous = jdbcTemplate.queryForList(sql, Boolean.class, reviewId, userId);
+        if (!previous.isEmpty()) {
+            applyUsefulDelta(reviewId, -weight(previous.getFirst()));
+        }
     }
 
+    // MERGE блокирует строку реакции и возвращает её прежнее состояние, поэтому одновременные реакции
+    // одного пользователя не посчитаются дважды; useful меняется на разницу весов атомарным UPDATE
     private void addReaction(int reviewId, int userId, boolean isLike) {
-        removeReactionWithoutRecalculation(reviewId, userId); // удаляем старую реакцию без перерасчёта
-        String sql = "INSERT INTO review_reactions (review_id, user_id, is_like) VALUES (?, ?, ?)";
-        jdbcTemplate.update(sql, reviewId, userId, isLike);
-        recalculateUseful(reviewId);
+        String sql = """
+                SELECT is_like FROM OLD TABLE (
+                    MERGE INTO review_reactions (review_id, user_id, is_like) KEY (review_id, user_id)
+                    VALUES (?, ?, ?)
+                )
+                """;
+        List<Boolean> previous;
+        try {
+            previous = jdbcTemplate.queryForList(sql, Boolean.class, reviewId, userId, isLike);
+        } catch (DuplicateKeyException e) {
+            // Параллельный запрос того же пользователя успел вставить строку: теперь MERGE её обновит
+            previous = jdbcTemplate.queryForList(sql, Boolean.class, reviewId, userId, isLike);
+        }
+        int delta = weight(isLike) - (previous.isEmpty() ? 0 : weight(previous.getFirst()));
+        applyUsefulDelta(reviewId, delta);
+    }
+
+    private void applyUsefulDelta(int reviewId, int delta) {
+        if (delta != 0) {
+            jdbcTemplate.update("UPDATE reviews SET useful = useful + ? WHERE review_id = ?", delta, reviewId);
+        }
     }
 
-    private void recalculateUseful(int reviewId) {
-        String sql = "SELECT SUM(CASE WHEN is_like THEN 1 ELSE -1 END) FROM review_reactions WHERE review_id = ?";
-        Integer useful = jdbcTemplate.queryForObject(sql, Integer.class, reviewId);
-        jdbcTemplate.update("UPDATE reviews SET useful = ? WHERE review_id = ?", useful == null ? 0 : useful, reviewId);
+    private static int weight(boolean isLike) {
+        return isLike ? 1 : -1;
     }
 
     private Review mapRowToReview(java.sql.ResultSet rs, int rowNum) throws java.sql.SQLException {
@@ -120,9 +171,4 @@ public class ReviewDbStorage implements ReviewStorage {
         review.setUseful(rs.getInt("useful"));
         return review;
     }
-
-    private void removeReactionWithoutRecalculation(int reviewId, int userId) {
-        String sql = "DELETE FROM review_reactions WHERE review_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, reviewId, userId);
-    }
 }
@@ -16,6 +16,10 @@ public interface ReviewStorage {
 
     List<Review> findByFilmId(Integer filmId, int count);
 
+    // Отзывы по убыванию useful, при равенстве — по возрастанию id, начиная после (afterUseful, afterReviewId);
+    // null в курсоре — с начала списка
+    List<Review> findByFilmId(Integer filmId, Integer afterUseful, Integer afterReviewId, int count);
+
     void addLike(int reviewId, int userId);
 
     void addDislike(int reviewId, int userId);
@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Лента событий друзей. События обычных пользователей при записи копируются (по event_id)
+ * в friend_timeline каждого, кто добавил автора в друзья. События пользователей, у которых подписчиков
+ * больше fan-out-threshold, не раскладываются, а подмешиваются при чтении прямо из events.
+ * Когда такой автор теряет подписчиков и опускается до порога, он ставится в очередь (onFollowerRemoved),
+ * и TimelineBackfillJob раскладывает его последние события задним числом; пока раскладка не выполнена,
+ * события автора по-прежнему подмешиваются при чтении.
+ */
+@Slf4j
+@Repository
+public class TimelineDbStorage implements TimelineStorage {
+    private final JdbcTemplate jdbcTemplate;
+    private final FriendshipGraph friendshipGraph;
+    private final int fanOutThreshold;
+    private final int capacity;
+    // Авторы, чьи события пропускались при раскладке с момента запуска
+    private final Set<Integer> skippedAuthors = ConcurrentHashMap.newKeySet();
+    // Авторы, опустившиеся до порога, чьи события ещё не разложены задним числом
+    private final Set<Integer> pendingBackfill = ConcurrentHashMap.newKeySet();
+
+    public TimelineDbStorage(JdbcTemplate jdbcTemplate,
+                             FriendshipGraph friendshipGraph,
+                             @Value("${filmorate.timeline.fan-out-threshold:1000}") int fanOutThreshold,
+                             @Value("${filmorate.timeline.capacity:1000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.friendshipGraph = friendshipGraph;
+        this.fanOutThreshold = fanOutThreshold;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void fanOut(List<Event> events) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Event event : events) {
+            int[] followers = friendshipGraph.followers(event.getUserId());
+            if (followers.length > fanOutThreshold) {
+                skippedAuthors.add(event.getUserId());
+                continue;
+            }
+            for (int followerId : followers) {
+                rows.add(new Object[]{followerId, event.getEventId()});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO friend_timeline (user_id, event_id) VALUES (?, ?)", rows);
+        }
+    }
+
+    @Override
+    public List<Event> getTimeline(int userId, Integer beforeEventId, int limit) {
+        int before = beforeEventId == null ? Integer.MAX_VALUE : beforeEventId;
+        // Проверка friendships отсекает события тех, кого пользователь уже удалил из друзей
+        String fannedOutSql = """
+                SELECT e.* FROM friend_timeline t
+                JOIN events e ON e.event_id = t.event_id
+                WHERE t.user_id = ? AND t.event_id < ?
+                  AND EXISTS (SELECT 1 FROM friendships f WHERE f.user_id = t.user_id AND f.friend_id = e.user_id)
+                ORDER BY t.user_id DESC, t.event_id DESC
+                LIMIT ?
+                """;
+        List<Event> fannedOut = jdbcTemplate.query(fannedOutSql, this::mapRowToEvent, userId, before, limit);
+
+        Integer[] popularFriends = Arrays.stream(friendshipGraph.friends(userId))
+                .filter(friendId -> friendshipGraph.followers(friendId).length > fanOutThreshold
+                        || pendingBackfill.contains(friendId))
+                .boxed()
+                .toArray(Integer[]::new);
+        if (popularFriends.length == 0) {
+            return fannedOut;
+        }
+        String popularSql = """
+                SELECT * FROM events
+                WHERE user_id = ANY(?) AND event_id < ?
+                ORDER BY event_id DESC
+                LIMIT ?
+                """;
+        List<Event> popular = jdbcTemplate.query(popularSql, this::mapRowToEvent, popularFriends, before, limit);
+        // Событие могло попасть в обе части, если у автора сменилось число подписчиков
+        return Stream.concat(fannedOut.stream(), popular.stream())
+                .sorted(Comparator.comparing(Event::getEventId).reversed())
+                .distinct()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void onFollowerRemoved(int authorId) {
+        int followers = friendshipGraph.followers(authorId).length;
+        if (followers > fanOutThreshold) {
+            return;
+        }
+        // Ровно на пороге — автор только что перестал быть популярным (в том числе если его события
+        // пропускались до перезапуска); повторная раскладка ничего не задваивает
+        boolean skipped = skippedAuthors.remove(authorId);
+        if (skipped || followers == fanOutThreshold) {
+            pendingBackfill.add(authorId);
+        }
+    }
+
+    @Override
+    public int backfillPending() {
+        int backfilled = 0;
+        for (Integer authorId : pendingBackfill) {
+            try {
+                backfill(authorId);
+                // Из очереди — только после вставки, чтобы до неё события автора подмешивались при чтении
+                pendingBackfill.remove(authorId);
+                backfilled++;
+            } catch (DataAccessException e) {
+                log.error("События автора {} не разложены по лентам, повтор при следующем запуске: {}",
+                        authorId, e.getMessage());
+            }
+        }
+        return backfilled;
+    }
+
+    private void backfill(int authorId) {
+        String sql = """
+                INSERT INTO friend_timeline (user_id, event_id)
+                SELECT f.user_id, e.event_id
+                FROM friendships f
+                CROSS JOIN (
+                    SELECT event_id FROM events
+                    WHERE user_id = ?
+                    ORDER BY user_id DESC, event_id DESC
+                    LIMIT ?
+                ) e
+                WHERE f.friend_id = ?
+                  AND NOT EXISTS (SELECT 1 FROM friend_timeline t WHERE t.user_id = f.user_id AND t.event_id = e.event_id)
+                """;
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(sql, authorId, capacity, authorId);
+        } catch (DuplicateKeyException e) {
+            // Параллельная раскладка нового события успела вставить ту же строку
+            inserted = jdbcTemplate.update(sql, authorId, capacity, authorId);
+        }
+        log.info("Автор {} опустился до порога раскладки, в ленты подписчиков добавлено {} событий",
+                authorId, inserted);
+    }
+
+    // Подрезаются только ленты длиннее capacity, по одному пользователю: граница берётся из индекса
+    // (user_id, event_id), поэтому каждый DELETE затрагивает только строки своей ленты
+    @Override
+    public int trim(int capacity) {
+        List<Integer> userIds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM friend_timeline GROUP BY user_id HAVING COUNT(*) > ?", Integer.class, capacity);
+        int removed = 0;
+        for (Integer userId : userIds) {
+            removed += trimUser(userId, capacity);
+        }
+        return removed;
+    }
+
+    private int trimUser(int userId, int capacity) {
+        List<Integer> oldestKept = jdbcTemplate.queryForList("""
+                SELECT event_id FROM friend_timeline
+                WHERE user_id = ?
+                ORDER BY user_id DESC, event_id DESC
+                LIMIT 1 OFFSET ?
+                """, Integer.class, userId, capacity - 1);
+        if (oldestKept.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM friend_timeline WHERE user_id = ? AND event_id < ?",
+                userId, oldestKept.getFirst());
+    }
+
+    private Event mapRowToEvent(ResultSet rs, int rowNum) throws SQLException {
+        Event event = new Event();
+        event.setEventId(rs.getInt("event_id"));
+        event.setTimestamp(rs.getLong("timestamp"));
+        event.setUserId(rs.getInt("user_id"));
+        event.setEventType(rs.getString("event_type"));
+        event.setOperation(rs.getString("operation"));
+        event.setEntityId(rs.getInt("entity_id"));
+        return event;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+
+public interface TimelineStorage {
+    // Раскладывает только что записанные события по лентам подписчиков их авторов
+    void fanOut(List<Event> events);
+
+    // События друзей пользователя от новых к старым с event_id меньше beforeEventId (null — с самого нового)
+    List<Event> getTimeline(int userId, Integer beforeEventId, int limit);
+
+    // Вызывается после того, как у автора стало меньше подписчиков: если он опустился до порога раскладки,
+    // ставит его в очередь на раскладку последних событий, которые раньше не раскладывались
+    void onFollowerRemoved(int authorId);
+
+    // Раскладывает по лентам подписчиков события авторов из очереди, возвращает число обработанных авторов
+    int backfillPending();
+
+    // Оставляет в ленте каждого пользователя не больше capacity последних событий, возвращает число удалённых
+    int trim(int capacity);
+}
@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.index.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.index.IntIntHashMap;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.EMPTY;
+
+/**
+ * Граф дружбы в памяти. Дружба односторонняя: для каждого пользователя хранятся отсортированные
+ * массивы тех, кого он добавил в друзья, и тех, кто добавил его. Также хранится множество id
+ * пользователей, чтобы проверять существование без запроса к БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipGraph extends InMemoryIndex<FriendshipGraph.State> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean exists(int userId) {
+        return state().users.contains(userId);
+    }
+
+    public int[] friends(int userId) {
+        return state().friends.getOrDefault(userId, EMPTY);
+    }
+
+    public int[] followers(int userId) {
+        return state().followers.getOrDefault(userId, EMPTY);
+    }
+
+    public int[] commonFriends(int userId, int otherId) {
+        State state = state();
+        return SortedIntArrays.intersect(state.friends.getOrDefault(userId, EMPTY),
+                state.friends.getOrDefault(otherId, EMPTY));
+    }
+
+    /**
+     * Кандидаты в друзья: пользователи, которых добавили друзья userId, но не он сам,
+     * по убыванию числа общих друзей, при равенстве — по возрастанию id.
+     * Обходятся не больше maxFanOut друзей и не больше maxFanOut друзей каждого из них,
+     * лучшие limit кандидатов отбираются кучей ограниченного размера.
+     */
+    public List<Suggestion> suggestions(int userId, int limit, int maxFanOut) {
+        State state = state();
+        int[] friends = state.friends.getOrDefault(userId, EMPTY);
+        int[] candidates = new int[0];
+        int size = 0;
+        for (int i = 0; i < Math.min(friends.length, maxFanOut); i++) {
+            int[] friendsOfFriend = state.friends.getOrDefault(friends[i], EMPTY);
+            for (int j = 0; j < Math.min(friendsOfFriend.length, maxFanOut); j++) {
+                int candidate = friendsOfFriend[j];
+                if (candidate != userId && !SortedIntArrays.contains(friends, candidate)) {
+                    if (size == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, Math.max(16, size * 2));
+                    }
+                    candidates[size++] = candidate;
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+
+        // Ключ: старшие 32 бита — число общих друзей, младшие — инвертированный id,
+        // так что больший ключ соответствует лучшему кандидату
+        PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+        for (int i = 0; i < size; ) {
+            int j = i;
+            while (j < size && candidates[j] == candidates[i]) {
+                j++;
+            }
+            best.add(((long) (j - i) << 32) | (Integer.MAX_VALUE - candidates[i]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+            i = j;
+        }
+        List<Suggestion> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long key = best.poll();
+            result.add(new Suggestion(Integer.MAX_VALUE - (int) key, (int) (key >>> 32)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Кратчайшая цепочка дружбы от userId до otherId (включая обоих) двунаправленным поиском в ширину:
+     * вперёд по друзьям от userId и назад по подписчикам от otherId, каждый раз расширяется меньший фронт.
+     * Возвращает null, если пути нет, он длиннее maxDepth рёбер или посещено больше maxVisited вершин.
+     */
+    public int[] shortestPath(int userId, int otherId, int maxDepth, int maxVisited) {
+        State state = state();
+        if (!state.users.contains(userId) || !state.users.contains(otherId)) {
+            return null;
+        }
+        if (userId == otherId) {
+            return new int[]{userId};
+        }
+        // Для прямого поиска — предыдущая вершина на пути от userId, для обратного — следующая к otherId
+        IntIntHashMap forward = new IntIntHashMap(64);
+        IntIntHashMap backward = new IntIntHashMap(64);
+        forward.put(userId, userId);
+        backward.put(otherId, otherId);
+        int[] forwardFrontier = {userId};
+        int[] backwardFrontier = {otherId};
+        int depth = 0;
+        while (forwardFrontier.length > 0 && backwardFrontier.length > 0 && depth < maxDepth) {
+            boolean expandForward = forwardFrontier.length <= backwardFrontier.length;
+            int[] frontier = expandForward ? forwardFrontier : backwardFrontier;
+            IntIntHashMap visited = expandForward ? forward : backward;
+            IntIntHashMap opposite = expandForward ? backward : forward;
+            Map<Integer, int[]> edges = expandForward ? state.friends : state.followers;
+
+            int[] next = new int[0];
+            int size = 0;
+            for (int node : frontier) {
+                for (int neighbour : edges.getOrDefault(node, EMPTY)) {
+                    if (visited.containsKey(neighbour)) {
+                        continue;
+                    }
+                    visited.put(neighbour, node);
+                    if (opposite.containsKey(neighbour)) {
+                        return buildPath(neighbour, userId, otherId, forward, backward);
+                    }
+                    if (forward.size() + backward.size() > maxVisited) {
+                        log.info("Поиск пути от {} до {} прерван: посещено больше {} вершин",
+                                userId, otherId, maxVisited);
+                        return null;
+                    }
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, Math.max(16, size * 2));
+                    }
+                    next[size++] = neighbour;
+                }
+            }
+            if (expandForward) {
+                forwardFrontier = Arrays.copyOf(next, size);
+            } else {
+                backwardFrontier = Arrays.copyOf(next, size);
+            }
+            depth++;
+        }
+        return null;
+    }
+
+    private int[] buildPath(int meeting, int userId, int otherId, IntIntHashMap forward, IntIntHashMap backward) {
+        List<Integer> path = new ArrayList<>();
+        for (int node = meeting; node != userId; node = forward.get(node, userId)) {
+            path.add(node);
+        }
+        path.add(userId);
+        Collections.reverse(path);
+        for (int node = meeting; node != otherId; ) {
+            node = backward.get(node, otherId);
+            path.add(node);
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public void onUserAdded(int userId) {
+        update(state -> state.users.add(userId));
+    }
+
+    public void onUserRemoved(int userId) {
+        update(state -> {
+            state.users.remove(userId);
+            int[] friends = state.friends.remove(userId);
+            if (friends != null) {
+                for (int friendId : friends) {
+                    state.followers.computeIfPresent(friendId, (k, ids) -> SortedIntArrays.remove(ids, userId));
+                }
+            }
+            int[] followers = state.followers.remove(userId);
+            if (followers != null) {
+                for (int followerId : followers) {
+                    state.friends.computeIfPresent(followerId, (k, ids) -> SortedIntArrays.remove(ids, userId));
+                }
+            }
+        });
+    }
+
+    public void onFriendAdded(int userId, int friendId) {
+        update(state -> {
+            state.friends.compute(userId, (k, ids) -> SortedIntArrays.insert(ids, friendId));
+            state.followers.compute(friendId, (k, ids) -> SortedIntArrays.insert(ids, userId));
+        });
+    }
+
+    public void onFriendRemoved(int userId, int friendId) {
+        update(state -> {
+            state.friends.computeIfPresent(userId, (k, ids) -> SortedIntArrays.remove(ids, friendId));
+            state.followers.computeIfPresent(friendId, (k, ids) -> SortedIntArrays.remove(ids, userId));
+        });
+    }
+
+    @Override
+    protected State load() {
+        State state = new State();
+        state.users.addAll(jdbcTemplate.queryForList("SELECT id FROM users", Integer.class));
+        Map<Integer, List<Integer>> friends = new HashMap<>();
+        Map<Integer, List<Integer>> followers = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendships", rs -> {
+            int userId = rs.getInt("user_id");
+            int friendId = rs.getInt("friend_id");
+            friends.computeIfAbsent(userId, k -> new ArrayList<>()).add(friendId);
+            followers.computeIfAbsent(friendId, k -> new ArrayList<>()).add(userId);
+        });
+        friends.forEach((userId, ids) -> state.friends.put(userId, SortedIntArrays.of(ids)));
+        followers.forEach((userId, ids) -> state.followers.put(userId, SortedIntArrays.of(ids)));
+        log.info("Граф дружбы загружен: {} пользователей, {} со списком друзей",
+                state.users.size(), state.friends.size());
+        return state;
+    }
+
+    public record Suggestion(int userId, int mutualFriends) {
+    }
+
+    protected static class State {
+        private final Set<Integer> users = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, int[]> friends = new ConcurrentHashMap<>();
+        private final Map<Integer, int[]> followers = new ConcurrentHashMap<>();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.PreparedStatement;
@@ -14,16 +15,24 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 @Qualifier("UserDbStorage")
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
+    private static final int STREAM_FETCH_SIZE = 500;
 
     private final JdbcTemplate jdbcTemplate;
+    private final FriendshipGraph friendshipGraph;
 
     @Override
     public User addUser(User user) {
@@ -39,6 +48,7 @@ public class UserDbStorage implements UserStorage {
             return ps;
         }, keyHolder);
         user.setId(keyHolder.getKey().intValue());
+        friendshipGraph.onUserAdded(user.getId());
         return user;
     }
 
@@ -55,6 +65,24 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query("SELECT * FROM users", this::mapRowToUser);
     }
 
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit);
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT * FROM users ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRowToUser(rs, 0));
+        });
+    }
+
     @Override
     public Optional<User> findUserById(Integer id) {
         String sql = "SELECT * FROM users WHERE id = ?";
@@ -73,37 +101,68 @@ public class UserDbStorage implements UserStorage {
         // Интеграционный тест добавил
         String sql = "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, userId, friendId);
+        friendshipGraph.onFriendAdded(userId, friendId);
     }
 
     @Override
     public void removeFriend(int userId, int friendId) {
         String sql = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
         jdbcTemplate.update(sql, userId, friendId);
+        friendshipGraph.onFriendRemoved(userId, friendId);
     }
 
     @Override
     public List<User> getFriends(int userId) {
-        String sql = """
-                SELECT u.*
-                FROM users AS u
-                JOIN friendships AS f ON u.id = f.friend_id
-                WHERE f.user_id = ?""";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId);
+        return findUsersByIds(friendshipGraph.friends(userId));
     }
 
     @Override
     public List<User> getCommonFriends(int userId, int otherId) {
-        String sql = """
-                SELECT u.* FROM users AS u
-                JOIN friendships AS f1 ON u.id = f1.friend_id
-                JOIN friendships AS f2 ON u.id = f2.friend_id
-                WHERE f1.user_id = ? AND f2.user_id = ?""";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
+        return findUsersByIds(friendshipGraph.commonFriends(userId, otherId));
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(int userId, int limit, int maxFanOut) {
+        List<FriendshipGraph.Suggestion> suggestions = friendshipGraph.suggestions(userId, limit, maxFanOut);
+        int[] ids = suggestions.stream().mapToInt(FriendshipGraph.Suggestion::userId).sorted().toArray();
+        Map<Integer, User> users = findUsersByIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return suggestions.stream()
+                .filter(suggestion -> users.containsKey(suggestion.userId()))
+                .map(suggestion -> new FriendSuggestion(users.get(suggestion.userId()), suggestion.mutualFriends()))
+                .toList();
+    }
+
+    @Override
+    public List<User> getFriendshipPath(int userId, int otherId, int maxDepth, int maxVisited) {
+        int[] path = friendshipGraph.shortestPath(userId, otherId, maxDepth, maxVisited);
+        if (path == null) {
+            return new ArrayList<>();
+        }
+        Map<Integer, User> users = findUsersByIds(Arrays.stream(path).sorted().toArray()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return Arrays.stream(path).mapToObj(users::get).toList();
+    }
+
+    @Override
+    public boolean existsById(int userId) {
+        return friendshipGraph.exists(userId);
     }
 
     @Override
     public void removeUser(int userId) {
         jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        friendshipGraph.onUserRemoved(userId);
+    }
+
+    // Пользователи по отсортированному списку id одним запросом
+    private List<User> findUsersByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Integer[] boxed = Arrays.stream(ids).boxed().toArray(Integer[]::new);
+        return jdbcTemplate.query("SELECT * FROM users WHERE id = ANY(?) ORDER BY id", this::mapRowToUser,
+                (Object) boxed);
     }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
@@ -1,10 +1,12 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User addUser(User user);
@@ -13,6 +15,10 @@ public interface UserStorage {
 
     Collection<User> getUsers();
 
+    List<User> getUsers(int afterId, int limit);
+
+    void streamUsers(Consumer<User> consumer);
+
     Optional<User> findUserById(Integer id);
 
     void addFriend(int userId, int friendId);
@@ -23,5 +29,11 @@ public interface UserStorage {
 
     List<User> getCommonFriends(int userId, int otherId);
 
+    boolean existsById(int userId);
+
+    List<FriendSuggestion> getFriendSuggestions(int userId, int limit, int maxFanOut);
+
+    List<User> getFriendshipPath(int userId, int otherId, int maxDepth, int maxVisited);
+
     void removeUser(int userId);
 }
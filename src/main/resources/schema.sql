@@ -1,3 +1,6 @@
+DROP TABLE IF EXISTS friend_timeline;
+DROP TABLE IF EXISTS user_recommendations;
+DROP TABLE IF EXISTS user_recommendation_status;
 DROP TABLE IF EXISTS review_reactions;
 DROP TABLE IF EXISTS reviews;
 DROP TABLE IF EXISTS film_likes;
@@ -31,6 +34,7 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
     mpa_rating_id INTEGER NOT NULL,
+    likes_count INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT fk_mpa FOREIGN KEY (mpa_rating_id) REFERENCES mpa_ratings(id)
     );
 
@@ -79,6 +83,10 @@ CREATE TABLE IF NOT EXISTS review_reactions (
     PRIMARY KEY (review_id, user_id)
 );
 
+-- Списки отзывов по полезности: для фильма и по всем фильмам
+CREATE INDEX IF NOT EXISTS idx_reviews_film_useful ON reviews (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS idx_reviews_useful ON reviews (useful DESC, review_id);
+
 CREATE TABLE IF NOT EXISTS events (
     event_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     timestamp BIGINT NOT NULL,
@@ -88,6 +96,18 @@ CREATE TABLE IF NOT EXISTS events (
     entity_id INTEGER NOT NULL
 );
 
+CREATE INDEX IF NOT EXISTS idx_events_user_event ON events (user_id, event_id);
+-- H2 не читает индекс в обратном порядке, поэтому для ленты «сначала новые» нужен свой индекс
+CREATE INDEX IF NOT EXISTS idx_events_user_event_desc ON events (user_id DESC, event_id DESC);
+
+-- Лента друзей: id событий, разложенные по подписчикам автора при записи
+CREATE TABLE IF NOT EXISTS friend_timeline (
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    event_id INTEGER NOT NULL REFERENCES events(event_id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_friend_timeline_user_event ON friend_timeline (user_id DESC, event_id DESC);
+
 CREATE TABLE IF NOT EXISTS directors (
      id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
      name VARCHAR NOT NULL
@@ -100,3 +120,19 @@ CREATE TABLE IF NOT EXISTS film_directors (
     CONSTRAINT fk_film_directors_film FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
     CONSTRAINT fk_film_directors_director FOREIGN KEY (director_id) REFERENCES directors(id) ON DELETE CASCADE
 );
+
+CREATE TABLE IF NOT EXISTS user_recommendations (
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    position INTEGER NOT NULL,
+    film_id INTEGER NOT NULL REFERENCES films(id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, position)
+);
+
+CREATE TABLE IF NOT EXISTS user_recommendation_status (
+    user_id INTEGER PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    computed_at BIGINT NOT NULL,
+    dirty BOOLEAN NOT NULL DEFAULT FALSE,
+    dirty_at BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_recommendation_status_refresh ON user_recommendation_status (dirty, dirty_at);
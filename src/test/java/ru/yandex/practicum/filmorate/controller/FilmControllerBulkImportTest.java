@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk-import;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmControllerBulkImportTest {
+    private static final String FILM = """
+            {"name": "%s", "releaseDate": "2000-01-01", "duration": 100, "mpa": {"id": 1}}""";
+
+    private final MockMvc mockMvc;
+
+    @Test
+    void shouldRejectBodyThatIsNotJson() throws Exception {
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("xxxx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStopAtSyntaxErrorWithoutPhantomItems() throws Exception {
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + FILM.formatted("Первый") + ", {bad ...}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.items[1].error").value(startsWith("Некорректный JSON")));
+
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{bad ...}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.failed").value(1));
+    }
+
+    @Test
+    void shouldContinueAfterItemOfWrongShape() throws Exception {
+        String body = String.join("\n",
+                FILM.formatted("Первый"),
+                """
+                        {"name": "Второй", "releaseDate": "2000-01-01", "duration": "abc", "mpa": {"id": 1}}""",
+                FILM.formatted("Третий"),
+                "{broken",
+                FILM.formatted("Не прочитан"));
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(NdjsonResponses.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.items[0].error").value(nullValue()))
+                .andExpect(jsonPath("$.items[1].error").value(startsWith("Некорректный JSON")))
+                .andExpect(jsonPath("$.items[2].error").value(nullValue()))
+                .andExpect(jsonPath("$.items[3].error").value(startsWith("Некорректный JSON")));
+    }
+
+    @Test
+    void shouldApplySameReleaseDateRuleToSingleAndBulkCreate() throws Exception {
+        String tooOld = """
+                {"name": "Прибытие поезда", "releaseDate": "1895-12-27", "duration": 1, "mpa": {"id": 1}}""";
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(tooOld))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + tooOld + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.items[0].error").value("дата релиза — не раньше 28 декабря 1895 года"));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.support.QueryBudget.queryBudget;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmControllerQueryBudgetTest {
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    private Film film;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            film = createFilm("Film " + i);
+        }
+        // Первое обращение загружает индекс популярности — в бюджет входит только установившийся режим
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldReadFilmsWithinQueryBudgetRegardlessOfRowCount() throws Exception {
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Server-Timing"))
+                .andExpect(queryBudget(3));
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(3));
+        mockMvc.perform(get("/films/popular").param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(3));
+    }
+
+    @Test
+    void shouldUpdateFilmMetadataWithinQueryBudget() throws Exception {
+        film.setDescription("Новое описание");
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void shouldFailWhenEndpointExceedsQueryBudget() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/films")).andExpect(queryBudget(2)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("при бюджете 2");
+    }
+
+    private Film createFilm(String name) throws Exception {
+        Film newFilm = new Film();
+        newFilm.setName(name);
+        newFilm.setDescription("Описание");
+        newFilm.setReleaseDate(LocalDate.of(2000, 1, 1));
+        newFilm.setDuration(100);
+        newFilm.setMpa(new Mpa(1, null));
+        newFilm.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        String response = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newFilm)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, Film.class);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-paging;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserControllerPagingTest {
+    private static final int USERS = 1005;
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class) == 0) {
+            jdbcTemplate.update("""
+                    INSERT INTO users (email, login, name, birthday)
+                    SELECT 'user' || X || '@email.com', 'user' || X, 'User', DATE '1990-01-01'
+                    FROM SYSTEM_RANGE(1, ?)
+                    """, USERS);
+        }
+    }
+
+    @Test
+    void shouldReturnBoundedPageByDefault() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1000)))
+                .andExpect(header().exists(PageResponses.NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(get("/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().exists(PageResponses.NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(get("/users").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldPageFeedWithSameParameters() throws Exception {
+        int userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Integer.class);
+        jdbcTemplate.update("""
+                INSERT INTO events (timestamp, user_id, event_type, operation, entity_id)
+                SELECT X, ?, 'LIKE', 'ADD', X FROM SYSTEM_RANGE(1, 3)
+                """, userId);
+
+        String cursor = mockMvc.perform(get("/users/{id}/feed", userId).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getHeader(PageResponses.NEXT_CURSOR_HEADER);
+        mockMvc.perform(get("/users/{id}/feed", userId).param("afterId", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist(PageResponses.NEXT_CURSOR_HEADER));
+        mockMvc.perform(get("/users/{id}/feed", userId).param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+
+        jdbcTemplate.update("DELETE FROM events WHERE user_id = ?", userId);
+    }
+
+    @Test
+    void shouldReturnAllUsersOnlyWhenUnpagedRequested() throws Exception {
+        mockMvc.perform(get("/users").param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(USERS)))
+                .andExpect(header().doesNotExist(PageResponses.NEXT_CURSOR_HEADER));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.PointcutAdvisor;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageMetricsConfigTest {
+
+    private final MethodMatcher matcher = ((PointcutAdvisor) StorageMetricsConfig.storageTimingAdvisor(null))
+            .getPointcut().getMethodMatcher();
+
+    @Test
+    void shouldTimeJdbcBackedStorageMethods() throws NoSuchMethodException {
+        assertThat(matcher.matches(FilmDbStorage.class.getMethod("getFilms"), FilmDbStorage.class)).isTrue();
+        assertThat(matcher.matches(MpaDbStorage.class.getMethod("reload"), MpaDbStorage.class)).isTrue();
+    }
+
+    @Test
+    void shouldSkipInMemoryDictionaryLookups() throws NoSuchMethodException {
+        assertThat(matcher.matches(MpaDbStorage.class.getMethod("findByIdMpa", int.class), MpaDbStorage.class))
+                .isFalse();
+        assertThat(matcher.matches(MpaDbStorage.class.getMethod("findAllMpa"), MpaDbStorage.class)).isFalse();
+        assertThat(matcher.matches(GenreDbStorage.class.getMethod("findGenreById", int.class), GenreDbStorage.class))
+                .isFalse();
+        assertThat(matcher.matches(GenreDbStorage.class.getMethod("getGenres"), GenreDbStorage.class)).isFalse();
+    }
+}
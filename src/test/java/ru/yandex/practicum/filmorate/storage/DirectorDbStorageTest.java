@@ -11,6 +11,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,7 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@Import(DirectorDbStorage.class)
+@Import({DirectorDbStorage.class, FilmSearchIndex.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class DirectorDbStorageTest {
 
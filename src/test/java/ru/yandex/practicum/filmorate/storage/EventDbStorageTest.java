@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.event.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.event.EventWriter;
+import ru.yandex.practicum.filmorate.storage.event.FeedPublisher;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EventDbStorage.class, EventWriter.class, FeedPublisher.class, TimelineDbStorage.class, UserDbStorage.class,
+        FriendshipGraph.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class EventDbStorageTest {
+
+    private final EventDbStorage eventStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldPageFeedInBothDirections() {
+        int userId = createUser("feed");
+        int otherId = createUser("other");
+        for (int i = 1; i <= 5; i++) {
+            eventStorage.addEvent(userId, "LIKE", "ADD", i);
+            eventStorage.addEvent(otherId, "LIKE", "ADD", i);
+        }
+
+        List<Event> firstPage = eventStorage.getFeed(userId, null, null, 2, false);
+        assertThat(firstPage).extracting(Event::getEntityId).containsExactly(1, 2);
+        List<Event> secondPage = eventStorage.getFeed(userId, firstPage.getLast().getEventId(), null, 2, false);
+        assertThat(secondPage).extracting(Event::getEntityId).containsExactly(3, 4);
+
+        List<Event> newest = eventStorage.getFeed(userId, null, null, 2, true);
+        assertThat(newest).extracting(Event::getEntityId).containsExactly(5, 4);
+        List<Event> older = eventStorage.getFeed(userId, null, newest.getLast().getEventId(), 10, true);
+        assertThat(older).extracting(Event::getEntityId).containsExactly(3, 2, 1);
+
+        assertThat(eventStorage.getFeed(userId)).extracting(Event::getEntityId).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void shouldReadFeedPageInIndexOrder() {
+        for (String order : List.of("ASC", "DESC")) {
+            String plan = jdbcTemplate.queryForObject("""
+                    EXPLAIN SELECT * FROM events
+                    WHERE USER_ID = 1 AND event_id > 0 AND event_id < 100
+                    ORDER BY user_id %s, event_id %s
+                    LIMIT 10
+                    """.formatted(order, order), String.class);
+            assertThat(plan).containsIgnoringCase("index sorted");
+        }
+    }
+
+    private int createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@email.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.addUser(user).getId();
+    }
+}
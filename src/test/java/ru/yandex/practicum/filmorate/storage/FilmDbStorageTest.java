@@ -6,30 +6,44 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@Import({FilmDbStorage.class, UserDbStorage.class, DirectorDbStorage.class})
+@Import({FilmDbStorage.class, UserDbStorage.class, DirectorDbStorage.class, MpaDbStorage.class, GenreDbStorage.class,
+        PopularityIndex.class, FilmSearchIndex.class, LikeMatrix.class,
+        FriendshipGraph.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 
 public class FilmDbStorageTest {
 
     private final FilmDbStorage filmStorage;
     private final UserDbStorage userStorage;
+    private final PopularityIndex popularityIndex;
+    private final DirectorDbStorage directorStorage;
     private final org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
 
     // Вспомогательный метод для создания пользователя в тестовой БД
@@ -111,6 +125,51 @@ public class FilmDbStorageTest {
         });
     }
 
+    @Test
+    void shouldApplyOnlyChangedLinksAndReturnHydratedFilm() {
+        Director nolan = directorStorage.createDirector(new Director(null, "Кристофер Нолан"));
+        Director villeneuve = directorStorage.createDirector(new Director(null, "Дени Вильнёв"));
+        Film film = createFilm("Film", "Description", LocalDate.of(2014, 11, 7), 111, new Mpa(1, null));
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        film.setDirectors(List.of(new Director(nolan.getId(), null)));
+        filmStorage.updateFilm(film);
+
+        film.setDescription("New description");
+        film.setMpa(new Mpa(2, null));
+        film.setGenres(List.of(new Genre(3, null), new Genre(2, null), new Genre(3, null)));
+        film.setDirectors(List.of(new Director(nolan.getId(), null), new Director(villeneuve.getId(), null)));
+        Film updated = filmStorage.updateFilm(film);
+
+        assertThat(updated.getMpa().getName()).isNotNull();
+        assertThat(updated.getGenres()).extracting(Genre::getId).containsExactly(2, 3);
+        assertThat(updated.getGenres()).allSatisfy(genre -> assertThat(genre.getName()).isNotNull());
+        assertThat(updated.getDirectors()).containsExactly(nolan, villeneuve);
+        assertThat(filmStorage.findFilmById(film.getId())).hasValueSatisfying(f -> {
+            assertThat(f.getDescription()).isEqualTo("New description");
+            assertThat(f.getMpa()).isEqualTo(updated.getMpa());
+            assertThat(f.getGenres()).isEqualTo(updated.getGenres());
+            assertThat(f.getDirectors()).containsExactlyInAnyOrderElementsOf(updated.getDirectors());
+        });
+
+        film.setGenres(null);
+        film.setDirectors(List.of());
+        Film cleared = filmStorage.updateFilm(film);
+        assertThat(cleared.getGenres()).isEmpty();
+        assertThat(cleared.getDirectors()).isEmpty();
+        assertThat(filmStorage.findFilmById(film.getId())).hasValueSatisfying(f -> {
+            assertThat(f.getGenres()).isEmpty();
+            assertThat(f.getDirectors()).isEmpty();
+        });
+    }
+
+    @Test
+    void shouldThrowWhenUpdatingUnknownFilm() {
+        Film film = createFilm("Film", "Description", LocalDate.of(2014, 11, 7), 111, new Mpa(1, null));
+        film.setId(film.getId() + 1000);
+
+        assertThatThrownBy(() -> filmStorage.updateFilm(film)).isInstanceOf(NotFoundException.class);
+    }
+
     @Test
     void shouldReturnAllFilms() {
         Film film1 = new Film();
@@ -138,6 +197,74 @@ public class FilmDbStorageTest {
                 .anySatisfy(f -> assertThat(f.getName()).isEqualTo("Film B"));
     }
 
+    @Test
+    void shouldReturnFilmsPageAfterCursor() {
+        Film film1 = createFilm("Film A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film film2 = createFilm("Film B", "B", LocalDate.of(2001, 1, 1), 100, new Mpa(1, null));
+        Film film3 = createFilm("Film C", "C", LocalDate.of(2002, 1, 1), 100, new Mpa(1, null));
+
+        List<Film> firstPage = filmStorage.getFilms(0, 2);
+        assertThat(firstPage).extracting(Film::getId).containsExactly(film1.getId(), film2.getId());
+        assertThat(firstPage.getFirst().getMpa().getName()).isEqualTo("G");
+
+        List<Film> secondPage = filmStorage.getFilms(film2.getId(), 2);
+        assertThat(secondPage).extracting(Film::getId).containsExactly(film3.getId());
+    }
+
+    @Test
+    void shouldStreamAllFilmsInIdOrder() {
+        Film film1 = createFilm("Film A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film film2 = createFilm("Film B", "B", LocalDate.of(2001, 1, 1), 100, new Mpa(2, null));
+
+        List<Film> streamed = new ArrayList<>();
+        filmStorage.streamFilms(streamed::add);
+
+        assertThat(streamed).extracting(Film::getId).containsExactly(film1.getId(), film2.getId());
+        assertThat(streamed).extracting(f -> f.getMpa().getName()).containsExactly("G", "PG");
+    }
+
+    @Test
+    void shouldHydrateMpaGenresAndDirectorsForEveryFilm() {
+        jdbcTemplate.update("INSERT INTO directors (id, name) VALUES (?, ?)", 1, "Director 1");
+        jdbcTemplate.update("INSERT INTO directors (id, name) VALUES (?, ?)", 2, "Director 2");
+
+        Film film1 = new Film();
+        film1.setName("Film A");
+        film1.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film1.setDuration(100);
+        film1.setMpa(new Mpa(1, null));
+        film1.setGenres(List.of(new Genre(2, null), new Genre(1, null)));
+        film1.setDirectors(List.of(new Director(1, null), new Director(2, null)));
+
+        Film film2 = new Film();
+        film2.setName("Film B");
+        film2.setReleaseDate(LocalDate.of(2010, 1, 1));
+        film2.setDuration(120);
+        film2.setMpa(new Mpa(4, null));
+
+        film1 = filmStorage.addFilm(film1);
+        film2 = filmStorage.addFilm(film2);
+
+        Collection<Film> allFilms = filmStorage.getFilms();
+
+        int film1Id = film1.getId();
+        int film2Id = film2.getId();
+        assertThat(allFilms).hasSize(2)
+                .anySatisfy(f -> {
+                    assertThat(f.getId()).isEqualTo(film1Id);
+                    assertThat(f.getMpa()).isEqualTo(new Mpa(1, "G"));
+                    assertThat(f.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+                    assertThat(f.getDirectors()).extracting(Director::getName)
+                            .containsExactlyInAnyOrder("Director 1", "Director 2");
+                })
+                .anySatisfy(f -> {
+                    assertThat(f.getId()).isEqualTo(film2Id);
+                    assertThat(f.getMpa()).isEqualTo(new Mpa(4, "R"));
+                    assertThat(f.getGenres()).isEmpty();
+                    assertThat(f.getDirectors()).isEmpty();
+                });
+    }
+
     @Test
     void shouldReturnCommonFilmsWithFriendSortedByPopularity() {
         // Создаем пользователей
@@ -221,6 +348,51 @@ public class FilmDbStorageTest {
                 .containsExactly("Film C");
     }
 
+    @Test
+    void shouldReportWhetherLikeChangedState() {
+        User user = createUser("Liker", "liker@example.com", "liker", LocalDate.of(1990, 1, 1));
+        Film film = createFilm("Liked", "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1, "G"));
+
+        assertThat(filmStorage.addLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.addLike(film.getId(), user.getId())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?",
+                Integer.class, film.getId())).isEqualTo(1);
+
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?",
+                Integer.class, film.getId())).isZero();
+    }
+
+    @Test
+    void shouldBatchInsertFilmsWithGenresAndDirectors() {
+        Director director = directorStorage.createDirector(new Director(null, "Пакетный режиссёр"));
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Film film = new Film();
+            film.setName("Bulk " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2000 + i, 1, 1));
+            film.setDuration(90 + i);
+            film.setMpa(new Mpa(1, null));
+            film.setGenres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null)));
+            film.setDirectors(i == 0 ? List.of(director) : null);
+            films.add(film);
+        }
+
+        int rows = filmStorage.addFilms(films);
+
+        // 3 фильма, по 2 различных жанра у каждого и один режиссёр
+        assertThat(rows).isEqualTo(3 + 6 + 1);
+        assertThat(films).allSatisfy(film -> assertThat(film.getId()).isNotNull());
+        Film first = filmStorage.findFilmById(films.getFirst().getId()).orElseThrow();
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(first.getDirectors()).extracting(Director::getName).containsExactly("Пакетный режиссёр");
+        assertThat(filmStorage.searchFilms("bulk", List.of("title"), 100))
+                .extracting(Film::getId)
+                .containsExactlyInAnyOrderElementsOf(films.stream().map(Film::getId).toList());
+    }
+
     @Test
     void shouldFindMostPopularFilms() {
         // Создаем пользователей, чтобы лайки ссылались на существующих
@@ -289,6 +461,80 @@ public class FilmDbStorageTest {
         assertThat(genreYearFiltered.get(0).getId()).isEqualTo(film3.getId());
     }
 
+    @Test
+    void shouldKeepLikesCountInSyncWithLikes() {
+        createTestUser(1);
+        createTestUser(2);
+        Film film = createFilm("Film A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+
+        filmStorage.addLike(film.getId(), 1);
+        filmStorage.addLike(film.getId(), 1);
+        filmStorage.addLike(film.getId(), 2);
+        filmStorage.removeLike(film.getId(), 2);
+        filmStorage.removeLike(film.getId(), 2);
+
+        assertThat(likesCount(film.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRepairLikesCountFromLikesTable() {
+        createTestUser(1);
+        createTestUser(2);
+        Film film = createFilm("Film A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", film.getId(), 1);
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", film.getId(), 2);
+
+        assertThat(filmStorage.repairLikesCounts()).isEqualTo(1);
+        assertThat(likesCount(film.getId())).isEqualTo(2);
+        assertThat(filmStorage.repairLikesCounts()).isZero();
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    @Test
+    void shouldRankMultiGenreFilmsByRealLikeCount() {
+        createTestUser(1);
+        createTestUser(2);
+
+        Film multiGenre = new Film();
+        multiGenre.setName("Multi genre");
+        multiGenre.setReleaseDate(LocalDate.of(2015, 1, 1));
+        multiGenre.setDuration(100);
+        multiGenre.setMpa(new Mpa(1, null));
+        multiGenre.setGenres(List.of(new Genre(1, null), new Genre(2, null), new Genre(3, null)));
+        multiGenre = filmStorage.addFilm(multiGenre);
+        Film single = createFilm("Single genre", "S", LocalDate.of(2015, 1, 1), 100, new Mpa(1, null));
+
+        filmStorage.addLike(multiGenre.getId(), 1);
+        filmStorage.addLike(single.getId(), 1);
+        filmStorage.addLike(single.getId(), 2);
+
+        assertThat(filmStorage.findMostPopularFilms(10, null, 2015))
+                .extracting(Film::getName)
+                .containsExactly("Single genre", "Multi genre");
+
+        filmStorage.removeLike(single.getId(), 1);
+        filmStorage.removeLike(single.getId(), 2);
+        assertThat(filmStorage.findMostPopularFilms(1, 2, 2015))
+                .extracting(Film::getName)
+                .containsExactly("Multi genre");
+        assertThat(popularityIndex.checkConsistency()).isZero();
+    }
+
+    @Test
+    void shouldDetectPopularityIndexDriftFromDatabase() {
+        createTestUser(1);
+        Film film = createFilm("Film A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        filmStorage.findMostPopularFilms(10, null, null);
+
+        jdbcTemplate.update("UPDATE films SET likes_count = 5 WHERE id = ?", film.getId());
+
+        assertThat(popularityIndex.checkConsistency()).isEqualTo(1);
+        assertThat(popularityIndex.checkConsistency()).isZero();
+    }
+
     @Test
     void shouldGetFilmsByDirectorSortedByYearAndLikes() {
         // Создаем режиссера
@@ -381,21 +627,131 @@ public class FilmDbStorageTest {
         filmStorage.addLike(film3.getId(), 2);
 
         // Поиск по названию
-        List<Film> byTitle = filmStorage.searchFilms("крад", List.of("title"));
+        List<Film> byTitle = filmStorage.searchFilms("крад", List.of("title"), 100);
         assertThat(byTitle)
                 .extracting(Film::getName)
                 .containsExactly("Тайна крадущегося", "Крадущийся тигр");
 
         // Поиск по режиссеру
-        List<Film> byDirector = filmStorage.searchFilms("крад", List.of("director"));
+        List<Film> byDirector = filmStorage.searchFilms("крад", List.of("director"), 100);
         assertThat(byDirector)
                 .extracting(Film::getName)
                 .containsExactly("Тайна крадущегося", "Крадущийся тигр");
 
         // Поиск по обоим полям
-        List<Film> byBoth = filmStorage.searchFilms("крад", List.of("title", "director"));
+        List<Film> byBoth = filmStorage.searchFilms("крад", List.of("title", "director"), 100);
         assertThat(byBoth)
                 .extracting(Film::getName)
                 .containsExactly("Тайна крадущегося", "Крадущийся тигр");
+
+        // count ограничивает выдачу самыми популярными, короткий запрос ищется без полного скана
+        assertThat(filmStorage.searchFilms("кр", List.of("title"), 1))
+                .extracting(Film::getName)
+                .containsExactly("Тайна крадущегося");
+    }
+
+    @Test
+    void shouldKeepSearchResultsInSyncWithFilmAndDirectorChanges() {
+        Director director = directorStorage.createDirector(new Director(null, "Кристофер Нолан"));
+        Film film = new Film();
+        film.setName("Начало");
+        film.setReleaseDate(LocalDate.of(2010, 7, 8));
+        film.setDuration(148);
+        film.setMpa(new Mpa(3, null));
+        film.setDirectors(List.of(new Director(director.getId(), null)));
+        film = filmStorage.addFilm(film);
+
+        assertThat(filmStorage.searchFilms("нач", List.of("title"), 100)).extracting(Film::getName).containsExactly("Начало");
+        assertThat(filmStorage.searchFilms("НОЛАН", List.of("director"), 100)).hasSize(1);
+        assertThat(filmStorage.searchFilms("ан", List.of("director"), 100)).hasSize(1);
+
+        film.setName("Интерстеллар");
+        filmStorage.updateFilm(film);
+        directorStorage.updateDirector(new Director(director.getId(), "Другой режиссёр"));
+
+        assertThat(filmStorage.searchFilms("нач", List.of("title"), 100)).isEmpty();
+        assertThat(filmStorage.searchFilms("стелл", List.of("title"), 100)).hasSize(1);
+        assertThat(filmStorage.searchFilms("нолан", List.of("director"), 100)).isEmpty();
+        assertThat(filmStorage.searchFilms("другой", List.of("title", "director"), 100))
+                .extracting(Film::getName)
+                .containsExactly("Интерстеллар");
+
+        directorStorage.deleteDirector(director.getId());
+        assertThat(filmStorage.searchFilms("другой", List.of("director"), 100)).isEmpty();
+    }
+
+    @Test
+    void shouldSearchByOneAndTwoCharacterQueriesLikeSubstringMatch() {
+        createFilm("Ёж", "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        createFilm("Я", "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        createFilm("Жажда", "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+
+        assertThat(filmStorage.searchFilms("ж", List.of("title"), 100))
+                .extracting(Film::getName)
+                .containsExactlyInAnyOrder("Ёж", "Жажда");
+        assertThat(filmStorage.searchFilms("я", List.of("title"), 100))
+                .extracting(Film::getName)
+                .containsExactly("Я");
+        assertThat(filmStorage.searchFilms("АЖ", List.of("title"), 100))
+                .extracting(Film::getName)
+                .containsExactly("Жажда");
+        assertThat(filmStorage.searchFilms("жё", List.of("title"), 100)).isEmpty();
+        assertThat(filmStorage.searchFilms("", List.of("title"), 100)).hasSize(3);
+    }
+
+    @Test
+    void shouldRecommendFilmsOfAllEquallySimilarUsersLikeLegacySql() {
+        for (int i = 1; i <= 4; i++) {
+            createTestUser(i);
+        }
+        Film a = createFilm("A", "A", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film b = createFilm("B", "B", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film c = createFilm("C", "C", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film d = createFilm("D", "D", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+        Film e = createFilm("E", "E", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null));
+
+        filmStorage.addLike(a.getId(), 1);
+        filmStorage.addLike(b.getId(), 1);
+        filmStorage.addLike(a.getId(), 2);
+        filmStorage.addLike(c.getId(), 2);
+        filmStorage.addLike(b.getId(), 3);
+        filmStorage.addLike(d.getId(), 3);
+        filmStorage.addLike(e.getId(), 4);
+
+        // user2 и user3 одинаково похожи на user1 — рекомендуются фильмы обоих
+        assertThat(filmStorage.getRecommendations(1)).extracting(Film::getName).containsExactly("C", "D");
+        assertThat(filmStorage.getRecommendations(1)).extracting(Film::getId)
+                .containsExactlyInAnyOrderElementsOf(legacyRecommendations(1));
+
+        filmStorage.addLike(b.getId(), 2);
+        assertThat(filmStorage.getRecommendations(1)).extracting(Film::getName).containsExactly("C");
+        assertThat(filmStorage.getRecommendations(1)).extracting(Film::getId)
+                .containsExactlyInAnyOrderElementsOf(legacyRecommendations(1));
+
+        filmStorage.removeFilm(c.getId());
+        assertThat(filmStorage.getRecommendations(1)).isEmpty();
+        assertThat(filmStorage.getRecommendations(4)).isEmpty();
+        assertThat(legacyRecommendations(4)).isEmpty();
+    }
+
+    // Прежний SQL-запрос рекомендаций — эталон семантики для матрицы лайков
+    private List<Integer> legacyRecommendations(int userId) {
+        String sql = """
+                SELECT DISTINCT f.id FROM films f
+                WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = f.id AND user_id = ?)
+                AND EXISTS (
+                SELECT 1 FROM film_likes fl WHERE fl.film_id = f.id AND fl.user_id IN (
+                SELECT fl2.user_id FROM film_likes fl1
+                JOIN film_likes fl2 ON fl1.film_id = fl2.film_id AND fl1.user_id <> fl2.user_id
+                WHERE fl1.user_id = ?
+                GROUP BY fl2.user_id
+                HAVING COUNT(fl1.film_id) = (
+                SELECT MAX(cnt) FROM (
+                SELECT COUNT(fl3.film_id) AS cnt FROM film_likes fl3
+                JOIN film_likes fl4 ON fl3.film_id = fl4.film_id AND fl3.user_id <> fl4.user_id
+                WHERE fl3.user_id = ?
+                GROUP BY fl4.user_id) counts)))
+                """;
+        return jdbcTemplate.queryForList(sql, Integer.class, userId, userId, userId);
     }
 }
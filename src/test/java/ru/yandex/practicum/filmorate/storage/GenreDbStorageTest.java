@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(GenreDbStorage.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class GenreDbStorageTest {
+
+    private final GenreDbStorage genreStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        // Транзакция теста откатывается, справочник в памяти нужно вернуть к состоянию БД
+        jdbcTemplate.update("DELETE FROM genres WHERE id = 7");
+        genreStorage.reload();
+    }
+
+    @Test
+    void shouldReturnSameGenreInstances() {
+        assertThat(genreStorage.getGenres()).hasSize(6);
+        assertThat(genreStorage.findGenreById(1)).containsSame(genreStorage.getGenres().getFirst());
+        assertThat(genreStorage.findGenreById(100)).isEmpty();
+    }
+
+    @Test
+    void shouldSeeNewGenreOnlyAfterReload() {
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (?, ?)", 7, "Вестерн");
+        assertThat(genreStorage.findGenreById(7)).isEmpty();
+
+        genreStorage.reload();
+
+        assertThat(genreStorage.findGenreById(7)).map(Genre::getName).contains("Вестерн");
+        assertThat(genreStorage.getGenres()).hasSize(7);
+    }
+}
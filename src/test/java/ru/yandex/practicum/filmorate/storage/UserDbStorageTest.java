@@ -6,18 +6,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 @JdbcTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@Import(UserDbStorage.class)
+@Import({UserDbStorage.class, FriendshipGraph.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserDbStorageTest {
 
@@ -93,6 +97,26 @@ public class UserDbStorageTest {
                 .anySatisfy(u -> assertThat(u.getLogin()).isEqualTo("user2"));
     }
 
+    @Test
+    void shouldReturnUsersPageAfterCursor() {
+        List<User> created = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@email.com");
+            user.setLogin("user" + i);
+            user.setName("User " + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            created.add(userStorage.addUser(user));
+        }
+
+        assertThat(userStorage.getUsers(0, 2))
+                .extracting(User::getId)
+                .containsExactly(created.get(0).getId(), created.get(1).getId());
+        assertThat(userStorage.getUsers(created.get(1).getId(), 2))
+                .extracting(User::getId)
+                .containsExactly(created.get(2).getId());
+    }
+
     // Тест односторонней дружбы
     @Test
     void shouldAddFriendOnlyOneWay() {
@@ -145,4 +169,110 @@ public class UserDbStorageTest {
         Optional<User> afterRemove = userStorage.findUserById(created.getId());
         assertThat(afterRemove).isEmpty();
     }
+
+    @Test
+    void shouldKeepFriendshipGraphInSyncWithDatabase() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            User user = new User();
+            user.setEmail("graph" + i + "@email.com");
+            user.setLogin("graph" + i);
+            user.setName("Graph " + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            users.add(userStorage.addUser(user));
+        }
+        int first = users.get(0).getId();
+        int second = users.get(1).getId();
+        int third = users.get(2).getId();
+        int fourth = users.get(3).getId();
+
+        userStorage.addFriend(first, third);
+        userStorage.addFriend(first, fourth);
+        userStorage.addFriend(second, fourth);
+        userStorage.addFriend(second, third);
+        userStorage.removeFriend(second, third);
+
+        assertThat(userStorage.getCommonFriends(first, second))
+                .extracting(User::getId)
+                .containsExactly(fourth);
+        assertThat(userStorage.existsById(fourth)).isTrue();
+
+        userStorage.removeUser(fourth);
+
+        assertThat(userStorage.existsById(fourth)).isFalse();
+        assertThat(userStorage.getCommonFriends(first, second)).isEmpty();
+        assertThat(userStorage.getFriends(first))
+                .extracting(User::getId)
+                .containsExactly(third);
+    }
+
+    @Test
+    void shouldRankFriendSuggestionsByMutualFriends() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User user = new User();
+            user.setEmail("suggest" + i + "@email.com");
+            user.setLogin("suggest" + i);
+            user.setName("Suggest " + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            ids.add(userStorage.addUser(user).getId());
+        }
+        int me = ids.get(0);
+        // Друзья: 1, 2, 3; у 1, 2 и 3 в друзьях 4, у 2 — ещё 5, у 1 — уже мой друг 3
+        userStorage.addFriend(me, ids.get(1));
+        userStorage.addFriend(me, ids.get(2));
+        userStorage.addFriend(me, ids.get(3));
+        userStorage.addFriend(ids.get(1), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(4));
+        userStorage.addFriend(ids.get(3), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(5));
+        userStorage.addFriend(ids.get(1), ids.get(3));
+        userStorage.addFriend(ids.get(1), me);
+
+        List<FriendSuggestion> suggestions = userStorage.getFriendSuggestions(me, 10, 100);
+
+        assertThat(suggestions)
+                .extracting(s -> s.getUser().getId(), FriendSuggestion::getMutualFriends)
+                .containsExactly(tuple(ids.get(4), 3), tuple(ids.get(5), 1));
+        assertThat(userStorage.getFriendSuggestions(me, 1, 100)).hasSize(1);
+        // При ограничении обхода учитываются только два первых друга и по два их друга
+        assertThat(userStorage.getFriendSuggestions(me, 10, 2))
+                .extracting(s -> s.getUser().getId(), FriendSuggestion::getMutualFriends)
+                .containsExactly(tuple(ids.get(4), 1), tuple(ids.get(5), 1));
+    }
+
+    @Test
+    void shouldFindShortestFriendshipPath() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User user = new User();
+            user.setEmail("path" + i + "@email.com");
+            user.setLogin("path" + i);
+            user.setName("Path " + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            ids.add(userStorage.addUser(user).getId());
+        }
+        // Длинный путь 0 → 1 → 2 → 3 → 4 и короткий 0 → 5 → 4; обратных рёбер нет
+        userStorage.addFriend(ids.get(0), ids.get(1));
+        userStorage.addFriend(ids.get(1), ids.get(2));
+        userStorage.addFriend(ids.get(2), ids.get(3));
+        userStorage.addFriend(ids.get(3), ids.get(4));
+        userStorage.addFriend(ids.get(0), ids.get(5));
+        userStorage.addFriend(ids.get(5), ids.get(4));
+
+        assertThat(userStorage.getFriendshipPath(ids.get(0), ids.get(4), 6, 1000))
+                .extracting(User::getId)
+                .containsExactly(ids.get(0), ids.get(5), ids.get(4));
+        assertThat(userStorage.getFriendshipPath(ids.get(1), ids.get(4), 6, 1000))
+                .extracting(User::getId)
+                .containsExactly(ids.get(1), ids.get(2), ids.get(3), ids.get(4));
+        // Дружба односторонняя: обратного пути нет
+        assertThat(userStorage.getFriendshipPath(ids.get(4), ids.get(0), 6, 1000)).isEmpty();
+        // Путь длиннее ограничения глубины не ищется
+        assertThat(userStorage.getFriendshipPath(ids.get(1), ids.get(4), 2, 1000)).isEmpty();
+
+        userStorage.removeUser(ids.get(5));
+        assertThat(userStorage.getFriendshipPath(ids.get(0), ids.get(4), 6, 1000))
+                .hasSize(5);
+    }
 }
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Фоновый поток пишет вне транзакции теста, поэтому данные готовятся и удаляются вручную
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TimelineDbStorage.class, FriendshipGraph.class, FeedPublisher.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EventWriterTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final TimelineDbStorage timelineStorage;
+    private final FeedPublisher feedPublisher;
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) "
+                + "VALUES ('writer@email.com', 'writer', 'Writer', '1990-01-01')");
+        userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void shouldWriteQueuedEventsInOrderBeforeFeedRead() throws InterruptedException {
+        EventWriter writer = asyncWriter(EventWriter.OverflowPolicy.BLOCK, 16);
+        for (int i = 1; i <= 100; i++) {
+            writer.write(userId, "LIKE", "ADD", i);
+        }
+
+        writer.awaitFlushed(userId);
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT entity_id FROM events WHERE user_id = ? ORDER BY event_id", Integer.class, userId))
+                .hasSize(100)
+                .isSorted();
+        writer.stop();
+    }
+
+    @Test
+    void shouldFlushQueueOnShutdown() throws InterruptedException {
+        EventWriter writer = asyncWriter(EventWriter.OverflowPolicy.WRITE_THROUGH, 4);
+        for (int i = 1; i <= 50; i++) {
+            writer.write(userId, "FRIEND", "ADD", i);
+        }
+
+        writer.stop();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE user_id = ?", Integer.class, userId))
+                .isEqualTo(50);
+        assertThat(writer.droppedCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepBatchWhenOneEventFails() throws InterruptedException {
+        EventWriter writer = asyncWriter(EventWriter.OverflowPolicy.BLOCK, 16);
+        writer.write(userId, "LIKE", "ADD", 1);
+        writer.write(Integer.MAX_VALUE, "LIKE", "ADD", 2);
+        writer.write(userId, "LIKE", "ADD", 3);
+
+        writer.stop();
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT entity_id FROM events WHERE user_id = ? ORDER BY event_id", Integer.class, userId))
+                .containsExactly(1, 3);
+    }
+
+    @Test
+    void shouldPublishWrittenEventsToSubscribers() throws InterruptedException {
+        EventWriter writer = asyncWriter(EventWriter.OverflowPolicy.BLOCK, 16);
+        List<Event> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = feedPublisher.subscribe(userId, received::add);
+
+        writer.write(userId, "REVIEW", "ADD", 7);
+        writer.awaitFlushed(userId);
+        unsubscribe.run();
+        writer.write(userId, "REVIEW", "REMOVE", 7);
+        writer.stop();
+
+        assertThat(received)
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getEventId()).isNotNull();
+                    assertThat(event.getOperation()).isEqualTo("ADD");
+                });
+    }
+
+    private EventWriter asyncWriter(EventWriter.OverflowPolicy overflowPolicy, int queueCapacity) {
+        EventWriter writer = new EventWriter(jdbcTemplate, transactionManager, timelineStorage, feedPublisher,
+                EventWriter.Mode.ASYNC, overflowPolicy, queueCapacity, 8, Duration.ofSeconds(10),
+                Duration.ofSeconds(10));
+        writer.start();
+        return writer;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryIndexTest {
+
+    // «БД» — счётчик; индекс хранит его копию. Загрузка может остановиться на защёлке после чтения
+    private static class CounterIndex extends InMemoryIndex<AtomicInteger> {
+        final AtomicInteger db = new AtomicInteger();
+        final AtomicInteger loads = new AtomicInteger();
+        volatile CountDownLatch loaded = new CountDownLatch(0);
+        volatile CountDownLatch proceed = new CountDownLatch(0);
+
+        @Override
+        protected AtomicInteger load() {
+            AtomicInteger copy = new AtomicInteger(db.get());
+            loads.incrementAndGet();
+            loaded.countDown();
+            try {
+                proceed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return copy;
+        }
+
+        int value() {
+            return state().get();
+        }
+
+        void increment() {
+            db.incrementAndGet();
+            update(AtomicInteger::incrementAndGet);
+        }
+    }
+
+    @Test
+    void shouldReloadWhenWriteArrivesDuringLoad() throws Exception {
+        CounterIndex index = new CounterIndex();
+        index.loaded = new CountDownLatch(1);
+        index.proceed = new CountDownLatch(1);
+        CompletableFuture<Integer> reader = CompletableFuture.supplyAsync(index::value);
+        assertThat(index.loaded.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Запись вне транзакции уже зафиксирована, а идущая загрузка её не видела
+        index.increment();
+        index.proceed.countDown();
+
+        assertThat(reader.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(index.loads.get()).isEqualTo(2);
+        assertThat(index.value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInvalidateAfterCommitOfWriteSkippedWhileUnloaded() {
+        CounterIndex index = new CounterIndex();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Транзакция записала, но ещё не зафиксирована; другой поток успевает загрузить индекс без записи
+            index.update(AtomicInteger::incrementAndGet);
+            assertThat(CompletableFuture.supplyAsync(index::value).join()).isZero();
+            index.db.incrementAndGet();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplyUpdatesToLoadedIndex() {
+        CounterIndex index = new CounterIndex();
+        assertThat(index.value()).isZero();
+
+        index.increment();
+        index.increment();
+
+        assertThat(index.value()).isEqualTo(2);
+        assertThat(index.loads.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RecommendationDbStorage.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class RecommendationDbStorageTest {
+
+    private final RecommendationDbStorage recommendationStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                    id, "user" + id + "@test.com", "login" + id, "User " + id, "1990-01-01");
+            jdbcTemplate.update("INSERT INTO films (id, name, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)",
+                    id, "Film " + id, "2000-01-01", 100, 1);
+        }
+    }
+
+    @Test
+    void shouldSaveAndFindSnapshotInOrder() {
+        assertThat(recommendationStorage.find(1)).isEmpty();
+
+        recommendationStorage.save(1, List.of(3, 2), 1000L);
+
+        assertThat(recommendationStorage.find(1)).hasValueSatisfying(snapshot -> {
+            assertThat(snapshot.getFilmIds()).containsExactly(3, 2);
+            assertThat(snapshot.getComputedAt()).isEqualTo(1000L);
+            assertThat(snapshot.isDirty()).isFalse();
+        });
+    }
+
+    @Test
+    void shouldMarkOnlyActingUserDirtyAndRefreshOnlyDirtyUsers() {
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 2)");
+        recommendationStorage.save(1, List.of(), 1000L);
+        recommendationStorage.save(2, List.of(), 1000L);
+        recommendationStorage.save(3, List.of(), 1000L);
+
+        recommendationStorage.markDirty(1);
+
+        assertThat(recommendationStorage.find(1)).hasValueSatisfying(s -> assertThat(s.isDirty()).isTrue());
+        assertThat(recommendationStorage.find(2)).hasValueSatisfying(s -> assertThat(s.isDirty()).isFalse());
+        assertThat(recommendationStorage.find(3)).hasValueSatisfying(s -> assertThat(s.isDirty()).isFalse());
+        assertThat(recommendationStorage.findDirtyUsers(10)).containsExactly(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldSaveConcurrentFirstComputationsOfSameUser() throws Exception {
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long computedAt = 1000L + i;
+                futures.add(executor.submit(() -> recommendationStorage.save(1, List.of(2, 3), computedAt)));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertThat(recommendationStorage.find(1))
+                    .hasValueSatisfying(s -> assertThat(s.getFilmIds()).containsExactly(2, 3));
+        } finally {
+            jdbcTemplate.update("DELETE FROM users");
+            jdbcTemplate.update("DELETE FROM films");
+        }
+    }
+
+    @Test
+    void shouldKeepDirtyFlagWhenMarkedAfterComputationStarted() {
+        recommendationStorage.save(1, List.of(), 1000L);
+        recommendationStorage.markDirty(1);
+
+        // расчёт начался до пометки — результат сохраняется, но пользователь остаётся в очереди
+        recommendationStorage.save(1, List.of(2), 1000L);
+        assertThat(recommendationStorage.find(1)).hasValueSatisfying(s -> assertThat(s.isDirty()).isTrue());
+
+        recommendationStorage.save(1, List.of(2), System.currentTimeMillis() + 1);
+        assertThat(recommendationStorage.find(1)).hasValueSatisfying(s -> assertThat(s.isDirty()).isFalse());
+    }
+}
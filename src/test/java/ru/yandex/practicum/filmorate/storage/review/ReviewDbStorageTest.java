@@ -7,7 +7,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Review;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -99,4 +105,76 @@ class ReviewDbStorageTest {
         Review afterRemove = reviewStorage.findById(reviewId).orElseThrow();
         assertThat(afterRemove.getUseful()).isZero();
     }
+
+    @Test
+    void shouldKeepUsefulConsistentUnderConcurrentReactions() throws Exception {
+        Review created = reviewStorage.create(testReview);
+        int reviewId = created.getReviewId();
+        int users = 20;
+        for (int id = 3; id < 3 + users; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, login, birthday) VALUES (?, ?, ?, ?, ?)",
+                    id, "User" + id, "user" + id + "@example.com", "user" + id, "1990-01-01");
+        }
+
+        // Каждый пользователь несколько раз подряд ставит лайк и дизлайк, часть — из двух потоков сразу
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int id = 3; id < 3 + users; id++) {
+            int userId = id;
+            for (int copy = 0; copy < 2; copy++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        reviewStorage.addDislike(reviewId, userId);
+                        reviewStorage.addLike(reviewId, userId);
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Integer expected = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(CASE WHEN is_like THEN 1 ELSE -1 END), 0) FROM review_reactions WHERE review_id = ?",
+                Integer.class, reviewId);
+        assertThat(reviewStorage.findById(reviewId).orElseThrow().getUseful())
+                .isEqualTo(expected)
+                .isEqualTo(users);
+    }
+
+    @Test
+    void shouldPageReviewsByUsefulWithCursor() {
+        List<Integer> ids = new ArrayList<>();
+        int[] useful = {3, 5, 3, 0, 3};
+        for (int value : useful) {
+            int id = reviewStorage.create(testReview).getReviewId();
+            jdbcTemplate.update("UPDATE reviews SET useful = ? WHERE review_id = ?", value, id);
+            ids.add(id);
+        }
+
+        List<Review> first = reviewStorage.findByFilmId(1, null, null, 2);
+        assertThat(first).extracting(Review::getReviewId).containsExactly(ids.get(1), ids.get(0));
+        Review last = first.getLast();
+        List<Review> second = reviewStorage.findByFilmId(1, last.getUseful(), last.getReviewId(), 2);
+        assertThat(second).extracting(Review::getReviewId).containsExactly(ids.get(2), ids.get(4));
+        last = second.getLast();
+        assertThat(reviewStorage.findByFilmId(null, last.getUseful(), last.getReviewId(), 10))
+                .extracting(Review::getReviewId)
+                .containsExactly(ids.get(3));
+        assertThat(reviewStorage.findByFilmId(2, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReadReviewListsInIndexOrder() {
+        String filmPlan = jdbcTemplate.queryForObject("""
+                EXPLAIN SELECT * FROM reviews WHERE film_id = 1 AND useful <= 3 AND (useful < 3 OR review_id > 1)
+                ORDER BY film_id, useful DESC, review_id LIMIT 10
+                """, String.class);
+        assertThat(filmPlan).contains("IDX_REVIEWS_FILM_USEFUL").contains("index sorted");
+        String globalPlan = jdbcTemplate.queryForObject("""
+                EXPLAIN SELECT * FROM reviews ORDER BY useful DESC, review_id LIMIT 10
+                """, String.class);
+        assertThat(globalPlan).contains("IDX_REVIEWS_USEFUL").contains("index sorted");
+    }
 }
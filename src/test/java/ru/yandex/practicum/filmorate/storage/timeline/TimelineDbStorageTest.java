@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.event.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.event.EventWriter;
+import ru.yandex.practicum.filmorate.storage.event.FeedPublisher;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TimelineDbStorage.class, EventDbStorage.class, EventWriter.class, FeedPublisher.class, UserDbStorage.class,
+        FriendshipGraph.class})
+@TestPropertySource(properties = "filmorate.timeline.fan-out-threshold=1")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class TimelineDbStorageTest {
+
+    private final TimelineDbStorage timelineStorage;
+    private final EventDbStorage eventStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldMergeFannedOutAndPopularAuthorsEvents() {
+        int reader = createUser("reader");
+        int friend = createUser("friend");
+        int popular = createUser("popular");
+        int other = createUser("other");
+        userStorage.addFriend(reader, friend);
+        userStorage.addFriend(reader, popular);
+        // У popular два подписчика — больше порога, его события не раскладываются по лентам
+        userStorage.addFriend(other, popular);
+
+        eventStorage.addEvent(friend, "LIKE", "ADD", 1);
+        eventStorage.addEvent(popular, "LIKE", "ADD", 2);
+        eventStorage.addEvent(friend, "LIKE", "ADD", 3);
+        eventStorage.addEvent(other, "LIKE", "ADD", 4);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friend_timeline WHERE user_id = ?",
+                Integer.class, reader)).isEqualTo(2);
+        assertThat(timelineStorage.getTimeline(reader, null, 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(3, 2, 1);
+        Event second = timelineStorage.getTimeline(reader, null, 2).getLast();
+        assertThat(timelineStorage.getTimeline(reader, second.getEventId(), 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(1);
+
+        userStorage.removeFriend(reader, friend);
+        assertThat(timelineStorage.getTimeline(reader, null, 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(2);
+    }
+
+    @Test
+    void shouldFanOutSkippedEventsWhenAuthorDropsToThreshold() {
+        int reader = createUser("reader");
+        int popular = createUser("popular");
+        int other = createUser("other");
+        userStorage.addFriend(reader, popular);
+        userStorage.addFriend(other, popular);
+        eventStorage.addEvent(popular, "LIKE", "ADD", 1);
+        eventStorage.addEvent(popular, "LIKE", "ADD", 2);
+
+        userStorage.removeFriend(other, popular);
+        timelineStorage.onFollowerRemoved(popular);
+
+        // Раскладка отложена, до неё события автора подмешиваются при чтении
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friend_timeline WHERE user_id = ?",
+                Integer.class, reader)).isZero();
+        assertThat(timelineStorage.getTimeline(reader, null, 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(2, 1);
+
+        assertThat(timelineStorage.backfillPending()).isEqualTo(1);
+
+        // Подписчик остался один, события больше не подмешиваются при чтении и лежат в ленте
+        assertThat(jdbcTemplate.queryForList("SELECT event_id FROM friend_timeline WHERE user_id = ?",
+                Integer.class, reader)).hasSize(2);
+        assertThat(timelineStorage.getTimeline(reader, null, 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(2, 1);
+
+        // Повторный вызов ничего не задваивает
+        timelineStorage.onFollowerRemoved(popular);
+        timelineStorage.backfillPending();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friend_timeline WHERE user_id = ?",
+                Integer.class, reader)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTrimTimelineToCapacity() {
+        int reader = createUser("reader");
+        int friend = createUser("friend");
+        userStorage.addFriend(reader, friend);
+        for (int i = 1; i <= 5; i++) {
+            eventStorage.addEvent(friend, "LIKE", "ADD", i);
+        }
+
+        assertThat(timelineStorage.trim(2)).isEqualTo(3);
+        assertThat(timelineStorage.getTimeline(reader, null, 10))
+                .extracting(Event::getEntityId)
+                .containsExactly(5, 4);
+        assertThat(timelineStorage.trim(2)).isZero();
+    }
+
+    private int createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@email.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.addUser(user).getId();
+    }
+}
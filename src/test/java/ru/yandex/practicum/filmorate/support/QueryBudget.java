@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.support;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.yandex.practicum.filmorate.monitoring.QueryStatsFilter;
+
+/**
+ * Проверка бюджета SQL-запросов эндпоинта по заголовку X-Query-Count:
+ * {@code mockMvc.perform(get("/films")).andExpect(queryBudget(3))}.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher queryBudget(int maxQueries) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryStatsFilter.QUERY_COUNT_HEADER);
+            if (header == null) {
+                throw new AssertionError("Ответ " + result.getRequest().getRequestURI()
+                        + " не содержит заголовка " + QueryStatsFilter.QUERY_COUNT_HEADER);
+            }
+            int queries = Integer.parseInt(header);
+            if (queries > maxQueries) {
+                throw new AssertionError(result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                        + " выполнил " + queries + " SQL-запросов при бюджете " + maxQueries);
+            }
+        };
+    }
+}